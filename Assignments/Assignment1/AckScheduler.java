@@ -0,0 +1,93 @@
+package Assignments.Assignment1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receiver-side cumulative acknowledgements.
+ * <p>
+ * An ACK covering every frame received so far goes out once {@code every} frames
+ * are pending, or {@code delayMs} after the first unacknowledged frame arrived,
+ * whichever comes first. The delay timer guarantees progress when the sender's
+ * window is smaller than {@code every}; without a delay ({@code delayMs <= 0}) nothing
+ * could flush a partial batch, so every frame is acknowledged at once.
+ */
+public class AckScheduler implements Closeable {
+
+    // Writes one cumulative ACK for all frames up to and including frameNo
+    public interface AckSink {
+        void sendAck(int frameNo) throws IOException;
+    }
+
+    private final AckSink sink;
+    private final int every;
+    private final long delayMs;
+    private final ScheduledExecutorService timer;
+
+    private int lastReceived = -1;
+    private int lastAcked = -1;
+    private ScheduledFuture<?> pendingFlush;
+    private IOException failure;
+
+    public AckScheduler(AckSink sink, int every, long delayMs) {
+        this.sink = sink;
+        this.every = delayMs > 0 ? Math.max(1, every) : 1;
+        this.delayMs = delayMs;
+        this.timer = (this.every > 1 && delayMs > 0)
+                ? Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "ack-timer");
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+    }
+
+    // Records an in-order frame and acknowledges it when the policy says so
+    public synchronized void received(int frameNo) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        lastReceived = frameNo;
+        if (lastReceived - lastAcked >= every) {
+            flush();
+        } else if (timer != null && pendingFlush == null) {
+            pendingFlush = timer.schedule(this::flushFromTimer, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        if (lastReceived > lastAcked) {
+            sink.sendAck(lastReceived);
+            lastAcked = lastReceived;
+        }
+    }
+
+    private synchronized void flushFromTimer() {
+        pendingFlush = null;
+        try {
+            flush();
+        } catch (IOException e) {
+            // surfaced to the reading thread on its next received() call
+            failure = e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (timer != null) {
+                timer.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package Assignments.Assignment1;
+
+import java.util.Arrays;
+
+/**
+ * A frame of bits packed eight to a byte.
+ * <p>
+ * Bit 0 is the most significant bit of byte 0, so the bit order matches the
+ * '0'/'1' strings used by the text protocol. Frames are mutable: the error
+ * injectors flip bits in place.
+ */
+public final class BitFrame {
+    private final byte[] bytes;
+    private final int length; // number of bits
+
+    public BitFrame(int length) {
+        this(new byte[(length + 7) >>> 3], length);
+    }
+
+    // Wraps the given array; bits past 'length' are expected to be zero
+    public BitFrame(byte[] bytes, int length) {
+        if (bytes.length * 8 < length) {
+            throw new IllegalArgumentException("Need " + length + " bits, got " + bytes.length * 8);
+        }
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    public static BitFrame fromBitString(String bits) {
+        BitFrame frame = new BitFrame(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            char c = bits.charAt(i);
+            if (c == '1') {
+                frame.bytes[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+            } else if (c != '0') {
+                throw new IllegalArgumentException("Invalid bit '" + c + "' at position " + i);
+            }
+        }
+        return frame;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // Backing array, shared with this frame
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public boolean get(int pos) {
+        checkIndex(pos);
+        return (bytes[pos >>> 3] & (0x80 >>> (pos & 7))) != 0;
+    }
+
+    public void set(int pos, boolean value) {
+        checkIndex(pos);
+        if (value) {
+            bytes[pos >>> 3] |= (byte) (0x80 >>> (pos & 7));
+        } else {
+            bytes[pos >>> 3] &= (byte) ~(0x80 >>> (pos & 7));
+        }
+    }
+
+    public void flip(int pos) {
+        checkIndex(pos);
+        bytes[pos >>> 3] ^= (byte) (0x80 >>> (pos & 7));
+    }
+
+    // Flip bits in range [start, start+len)
+    public void flipRange(int start, int len) {
+        if (start < 0 || len < 0 || start + len > length) {
+            throw new IllegalArgumentException("flipRange out of range");
+        }
+        int pos = start;
+        int end = start + len;
+        while (pos < end && (pos & 7) != 0) {
+            flip(pos++);
+        }
+        while (pos + 8 <= end) {
+            bytes[pos >>> 3] ^= (byte) 0xFF;
+            pos += 8;
+        }
+        while (pos < end) {
+            flip(pos++);
+        }
+    }
+
+    public void flipAll() {
+        flipRange(0, length);
+    }
+
+    // this ^= other, over the bits both frames share
+    public void xor(BitFrame other) {
+        int n = Math.min(length, other.length);
+        int full = n >>> 3;
+        for (int i = 0; i < full; i++) {
+            bytes[i] ^= other.bytes[i];
+        }
+        for (int pos = full << 3; pos < n; pos++) {
+            if (other.get(pos)) {
+                flip(pos);
+            }
+        }
+    }
+
+    // Reads n (<= 64) bits starting at pos, MSB first
+    public long getBits(int pos, int n) {
+        if (n < 0 || n > 64 || pos < 0 || pos + n > length) {
+            throw new IllegalArgumentException("getBits out of range");
+        }
+        long value = 0;
+        int i = 0;
+        if ((pos & 7) == 0) {
+            // Byte-aligned: take whole bytes first
+            for (; i + 8 <= n; i += 8) {
+                value = (value << 8) | (bytes[(pos + i) >>> 3] & 0xFF);
+            }
+        }
+        for (; i < n; i++) {
+            int p = pos + i;
+            value = (value << 1) | ((bytes[p >>> 3] >>> (7 - (p & 7))) & 1);
+        }
+        return value;
+    }
+
+    // Writes the low n (<= 64) bits of value starting at pos, MSB first
+    public void setBits(int pos, int n, long value) {
+        if (n < 0 || n > 64 || pos < 0 || pos + n > length) {
+            throw new IllegalArgumentException("setBits out of range");
+        }
+        int i = 0;
+        if ((pos & 7) == 0) {
+            // Byte-aligned: store whole bytes first
+            for (; i + 8 <= n; i += 8) {
+                bytes[(pos + i) >>> 3] = (byte) (value >>> (n - 8 - i));
+            }
+        }
+        for (; i < n; i++) {
+            set(pos + i, ((value >>> (n - 1 - i)) & 1) != 0);
+        }
+    }
+
+    public BitFrame copy() {
+        return new BitFrame(bytes.clone(), length);
+    }
+
+    // Copy of the first min(length, newLength) bits, zero padded to newLength bits
+    public BitFrame copy(int newLength) {
+        BitFrame out = new BitFrame(newLength);
+        int n = Math.min(length, newLength);
+        System.arraycopy(bytes, 0, out.bytes, 0, n >>> 3);
+        for (int pos = n & ~7; pos < n; pos++) {
+            if (get(pos)) {
+                out.set(pos, true);
+            }
+        }
+        return out;
+    }
+
+    public String toBitString() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ((bytes[i >>> 3] >>> (7 - (i & 7))) & 1) != 0 ? '1' : '0';
+        }
+        return new String(chars);
+    }
+
+    private void checkIndex(int pos) {
+        if (pos < 0 || pos >= length) {
+            throw new IndexOutOfBoundsException("Bit " + pos + " outside frame of " + length + " bits");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BitFrame)) return false;
+        BitFrame other = (BitFrame) o;
+        return length == other.length && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * length + Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return toBitString();
+    }
+}
@@ -0,0 +1,398 @@
+package Assignments.Assignment1;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact detection probabilities of a catalogue CRC under the error models of
+ * {@link ErrorInjector} and {@link CrcErrorInjector}, computed instead of sampled.
+ * <p>
+ * The CRC rejects an error vector exactly when its syndrome is non-zero, so every
+ * probability reduces to counting error patterns with zero syndrome. The core is the
+ * weight distribution A_m (patterns of m flipped checked bits with zero syndrome):
+ * <ul>
+ * <li>up to {@link #DUAL_LIMIT} check bits it is exact for every weight: the 2^r
+ * words of the dual code are walked in Gray-code order with the parity-check rows
+ * held as {@code long[]} bitsets (64 positions per XOR) and the MacWilliams identity
+ * turns their weights into A_m, in BigInteger arithmetic;</li>
+ * <li>for wider CRCs, patterns up to {@link #MAX_WEIGHT} bits are enumerated
+ * directly and higher weights use the random-code estimate C(n, m) / 2^r, which is
+ * reported as approximate. The enumeration grows as n^3 in the checked bits, so it
+ * is meant for frames of a few hundred bytes at most.</li>
+ * </ul>
+ * Weight distributions are cached per polynomial and frame geometry, analyses per
+ * scheme and {@link FrameGeometry}. {@link #main} checks the numbers against
+ * {@link DetectionSimulator}.
+ */
+public final class CrcAnalysis {
+    static final int DUAL_LIMIT = 20;
+    static final int MAX_WEIGHT = 4;
+    private static final double RANDOM_TWO_BIT_SHARE = 0.20;
+    private static final int BURST_FACTOR = 5; // burst length is uniform in [1, 5 * width]
+
+    private static final Map<String, WeightDistribution> WEIGHTS = new ConcurrentHashMap<>();
+    private static final Map<FrameGeometry, Map<CrcCatalog.Spec, CrcAnalysis>> BY_GEOMETRY =
+            new ConcurrentHashMap<>();
+
+    private final CrcCatalog.Spec spec;
+    private final FrameGeometry geometry;
+    private final WeightDistribution weights;
+    private final int frameBits;   // encoded length, padding included
+    private final int leadingBits; // frame data, where ErrorInjector puts single, odd and random two-bit errors
+    private final double[] detection = new double[DetectionResults.ERROR_TYPES];
+
+    /**
+     * Number of zero-syndrome patterns of each weight over the checked bits of one
+     * CRC. count[m] is exact for m &lt;= exactUpTo.
+     */
+    static final class WeightDistribution {
+        final int length;
+        final double[] count;
+        final int exactUpTo;
+
+        WeightDistribution(int length, double[] count, int exactUpTo) {
+            this.length = length;
+            this.count = count;
+            this.exactUpTo = exactUpTo;
+        }
+    }
+
+    private CrcAnalysis(CrcCatalog.Spec spec, FrameGeometry geometry) {
+        this.spec = spec;
+        this.geometry = geometry;
+        CrcSyndrome syndrome = CrcSyndrome.of(spec, geometry);
+        this.frameBits = geometry.crcFrameBits(spec);
+        this.leadingBits = geometry.frameBits;
+        // Reflection only permutes positions, so the distribution depends on the polynomial alone
+        this.weights = WEIGHTS.computeIfAbsent(spec.width + ":" + Long.toHexString(spec.poly) + ":"
+                + syndrome.checkedBits(), k -> weightDistribution(syndrome));
+
+        detection[0] = 0;
+        detection[1] = 1 - undetectedLeading(syndrome);
+        detection[2] = 1 - (RANDOM_TWO_BIT_SHARE * undetectedLeadingPair(syndrome)
+                + (1 - RANDOM_TWO_BIT_SHARE) * undetectedWordPair(syndrome));
+        detection[3] = detection[1]; // odd errors flip a single random leading bit
+        detection[4] = burstDetection();
+    }
+
+    // Analysis over the default 60-byte frame
+    public static CrcAnalysis of(CrcCatalog.Spec spec) {
+        return of(spec, FrameGeometry.DEFAULT);
+    }
+
+    public static CrcAnalysis of(CrcCatalog.Spec spec, FrameGeometry geometry) {
+        return BY_GEOMETRY.computeIfAbsent(geometry, g -> new ConcurrentHashMap<>())
+                .computeIfAbsent(spec, s -> new CrcAnalysis(s, geometry));
+    }
+
+    public CrcCatalog.Spec spec() {
+        return spec;
+    }
+
+    public FrameGeometry geometry() {
+        return geometry;
+    }
+
+    // Probability that the CRC detects an error of the given type (0 none .. 4 burst)
+    public double detection(int errorType) {
+        return detection[errorType];
+    }
+
+    // False when a probability relies on the approximate high-weight counts
+    public boolean exact(int errorType) {
+        return errorType != 4 || weights.exactUpTo >= spec.width;
+    }
+
+    // Zero-syndrome patterns of the given weight among the checked bits
+    public double codewords(int weight) {
+        return weights.count[weight];
+    }
+
+    /**
+     * Probability that k distinct bits chosen uniformly over the whole frame (padding
+     * included, as the burst injector does) leave the syndrome at zero.
+     */
+    public double undetected(int k) {
+        int checked = weights.length;
+        int padding = frameBits - checked;
+        double total = 0;
+        for (int m = 0; m <= k && m < weights.count.length; m++) {
+            total += weights.count[m] * binomial(padding, k - m);
+        }
+        return total / binomial(frameBits, k);
+    }
+
+    // Single bit in the frame data
+    private double undetectedLeading(CrcSyndrome syndrome) {
+        int zero = 0;
+        for (int p = 0; p < leadingBits; p++) {
+            if (syndrome.column(p) == 0) zero++;
+        }
+        return (double) zero / leadingBits;
+    }
+
+    // Two distinct bits in the frame data: pairs with equal columns, counted over the sorted columns
+    private double undetectedLeadingPair(CrcSyndrome syndrome) {
+        long[] columns = new long[leadingBits];
+        for (int p = 0; p < leadingBits; p++) {
+            columns[p] = syndrome.column(p);
+        }
+        Arrays.sort(columns);
+        double same = 0;
+        int i = 0;
+        while (i < leadingBits) {
+            int j = i + 1;
+            while (j < leadingBits && columns[j] == columns[i]) j++;
+            same += binomial(j - i, 2);
+            i = j;
+        }
+        return same / binomial(leadingBits, 2);
+    }
+
+    /**
+     * The structured two-bit error of {@link ErrorInjector#twoBitError(BitFrame)} over
+     * uniformly random data: word j is the first 16-bit word differing from word 0
+     * (probability 2^-16(j-1)) and d its leading differing bit (probability 2^-(d+1));
+     * bits d and 16j+d are flipped. When all words are equal nothing is flipped. The
+     * last words hold the CRC and padding rather than random data; they are only
+     * reached when every data word equals word 0 (below 2^-400 for the default frame)
+     * and are treated as random.
+     */
+    private static double undetectedWordPair(CrcSyndrome syndrome) {
+        final int words = syndrome.encodedBits() / 16;
+        double undetected = 0;
+        double reach = 1; // probability that words 1..j-1 all equal word 0
+        for (int j = 1; j < words; j++) {
+            for (int d = 0; d < 16; d++) {
+                if (syndrome.column(d) == syndrome.column(16 * j + d)) {
+                    undetected += reach * Math.pow(2, -(d + 1));
+                }
+            }
+            reach *= Math.pow(2, -16);
+        }
+        return undetected + reach;
+    }
+
+    // Burst length i uniform in [1, 5r]: i <= r flips i random bits, longer bursts are built undetectable
+    private double burstDetection() {
+        int r = spec.width;
+        double detected = 0;
+        for (int i = 1; i <= r; i++) {
+            detected += 1 - undetected(i);
+        }
+        return detected / (BURST_FACTOR * r);
+    }
+
+    private static WeightDistribution weightDistribution(CrcSyndrome syndrome) {
+        int r = syndrome.width();
+        int n = syndrome.checkedBits();
+        long[] columns = new long[n];
+        for (int p = 0; p < n; p++) {
+            columns[p] = syndrome.column(p);
+        }
+        return r <= DUAL_LIMIT ? viaDualCode(columns, r) : enumerateLowWeight(columns, r);
+    }
+
+    /**
+     * Walks all 2^r dual codewords (sums of parity-check rows) in Gray-code order,
+     * one row XOR per step, and applies MacWilliams:
+     * A_m = 2^-r * sum_j B_j * K_m(j), with K_m the Krawtchouk polynomials.
+     */
+    static WeightDistribution viaDualCode(long[] columns, int r) {
+        int n = columns.length;
+        int wordsPerRow = (n + 63) >>> 6;
+        long[][] rows = new long[r][wordsPerRow];
+        for (int p = 0; p < n; p++) {
+            for (int k = 0; k < r; k++) {
+                if ((columns[p] >>> k & 1) != 0) {
+                    rows[k][p >>> 6] |= 1L << p;
+                }
+            }
+        }
+
+        long[] dualWeights = new long[n + 1];
+        long[] acc = new long[wordsPerRow];
+        dualWeights[0]++;
+        for (long step = 1; step < (1L << r); step++) {
+            long[] row = rows[Long.numberOfTrailingZeros(step)];
+            int weight = 0;
+            for (int w = 0; w < wordsPerRow; w++) {
+                acc[w] ^= row[w];
+                weight += Long.bitCount(acc[w]);
+            }
+            dualWeights[weight]++;
+        }
+
+        BigInteger[][] binom = binomials(n, r);
+        double[] count = new double[r + 1];
+        for (int m = 0; m <= r; m++) {
+            BigInteger sum = BigInteger.ZERO;
+            for (int j = 0; j <= n; j++) {
+                if (dualWeights[j] != 0) {
+                    sum = sum.add(krawtchouk(m, j, n, binom).multiply(BigInteger.valueOf(dualWeights[j])));
+                }
+            }
+            BigInteger[] qr = sum.divideAndRemainder(BigInteger.ONE.shiftLeft(r));
+            if (qr[1].signum() != 0 || qr[0].signum() < 0) {
+                throw new IllegalStateException("MacWilliams transform is not integral at weight " + m);
+            }
+            count[m] = qr[0].doubleValue();
+        }
+        return new WeightDistribution(n, count, r);
+    }
+
+    // K_m(j) = sum_s (-1)^s C(j, s) C(n - j, m - s)
+    private static BigInteger krawtchouk(int m, int j, int n, BigInteger[][] binom) {
+        BigInteger k = BigInteger.ZERO;
+        for (int s = 0; s <= m && s <= j; s++) {
+            if (m - s > n - j) continue;
+            BigInteger term = binom[j][s].multiply(binom[n - j][m - s]);
+            k = (s & 1) == 0 ? k.add(term) : k.subtract(term);
+        }
+        return k;
+    }
+
+    // binom[a][b] for a <= n, b <= maxK
+    private static BigInteger[][] binomials(int n, int maxK) {
+        BigInteger[][] binom = new BigInteger[n + 1][maxK + 1];
+        for (int a = 0; a <= n; a++) {
+            Arrays.fill(binom[a], BigInteger.ZERO);
+            binom[a][0] = BigInteger.ONE;
+            for (int b = 1; b <= Math.min(a, maxK); b++) {
+                binom[a][b] = binom[a - 1][b - 1].add(b <= a - 1 ? binom[a - 1][b] : BigInteger.ZERO);
+            }
+        }
+        return binom;
+    }
+
+    /**
+     * Counts zero-syndrome patterns of up to MAX_WEIGHT bits exactly: every (m-1)-subset
+     * is extended by the positions past its last bit whose column equals its running
+     * syndrome, found by binary search over the sorted columns.
+     */
+    static WeightDistribution enumerateLowWeight(long[] columns, int r) {
+        int n = columns.length;
+        long[][] sorted = new long[n][];
+        for (int p = 0; p < n; p++) {
+            sorted[p] = new long[]{columns[p], p};
+        }
+        Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        long[] keys = new long[n];
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = sorted[i][0];
+            positions[i] = (int) sorted[i][1];
+        }
+
+        double[] count = new double[r + 1];
+        count[0] = 1;
+        for (int m = 1; m <= Math.min(MAX_WEIGHT, r); m++) {
+            count[m] = extend(columns, keys, positions, m - 1, -1, 0L);
+        }
+        // Beyond the enumerated weights a CRC behaves like a random code
+        for (int m = MAX_WEIGHT + 1; m <= r; m++) {
+            count[m] = binomial(n, m) * Math.pow(2, -r);
+        }
+        return new WeightDistribution(n, count, Math.min(MAX_WEIGHT, r));
+    }
+
+    private static long extend(long[] columns, long[] keys, int[] positions, int remaining, int last, long syn) {
+        if (remaining == 0) {
+            return countAfter(keys, positions, syn, last);
+        }
+        long total = 0;
+        for (int p = last + 1; p < columns.length - remaining; p++) {
+            total += extend(columns, keys, positions, remaining - 1, p, syn ^ columns[p]);
+        }
+        return total;
+    }
+
+    // Positions after `last` whose column equals syn
+    private static long countAfter(long[] keys, int[] positions, long syn, int last) {
+        int i = Arrays.binarySearch(keys, syn);
+        if (i < 0) return 0;
+        while (i > 0 && keys[i - 1] == syn) i--;
+        long found = 0;
+        for (; i < keys.length && keys[i] == syn; i++) {
+            if (positions[i] > last) found++;
+        }
+        return found;
+    }
+
+    static double binomial(int n, int k) {
+        if (k < 0 || k > n) return 0;
+        double b = 1;
+        for (int i = 1; i <= k; i++) {
+            b = b * (n - k + i) / i;
+        }
+        return b;
+    }
+
+    private static void print(CrcCatalog.Spec[] specs, FrameGeometry geometry, DetectionSimulator.Result mc) {
+        System.out.println("\n" + "=".repeat(96));
+        System.out.println("                 ANALYTICAL DETECTION PROBABILITY" + (mc != null ? " vs MONTE CARLO" : ""));
+        System.out.println("=".repeat(96));
+        System.out.printf("%-8s", "Error");
+        for (CrcCatalog.Spec spec : specs) {
+            System.out.printf(" %-21s", spec.name);
+        }
+        System.out.println();
+        System.out.println("-".repeat(96));
+
+        boolean pass = true;
+        for (int e = 0; e < DetectionResults.ERROR_TYPES; e++) {
+            System.out.printf("%-8s", DetectionSimulator.ERROR_TYPES[e]);
+            for (int s = 0; s < specs.length; s++) {
+                CrcAnalysis analysis = of(specs[s], geometry);
+                double p = analysis.detection(e);
+                String cell = String.format("%s%.4f%%", analysis.exact(e) ? "" : "~", p * 100);
+                if (mc != null) {
+                    double observed = mc.rate(e, s);
+                    // 4 standard errors of the sample proportion, so a correct model almost never fails
+                    double tolerance = 4 * Math.sqrt(p * (1 - p) / mc.trials(e)) + 1e-9;
+                    boolean ok = Math.abs(observed - p) <= tolerance;
+                    pass &= ok;
+                    cell += String.format(" %.2f%s", observed * 100, ok ? "" : "!");
+                }
+                System.out.printf(" %-21s", cell);
+            }
+            System.out.println();
+        }
+        System.out.println("=".repeat(96));
+        if (mc != null) {
+            System.out.println(pass ? "Monte Carlo agrees with the analysis"
+                    : "MISMATCH: entries marked ! are outside 4 standard errors");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long trials = args.length > 0 ? Long.parseLong(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        String[] schemes = args.length > 2 ? args[2].split(",") : new String[]{"crc8", "crc10", "crc16", "crc32"};
+        FrameGeometry geometry = args.length > 3 ? FrameGeometry.of(Integer.parseInt(args[3])) : FrameGeometry.DEFAULT;
+
+        CrcCatalog.Spec[] specs = new CrcCatalog.Spec[schemes.length];
+        long start = System.nanoTime();
+        for (int s = 0; s < schemes.length; s++) {
+            specs[s] = CrcCatalog.lookup(schemes[s]);
+            of(specs[s], geometry);
+        }
+        System.out.printf("Analysis of %d schemes over a %s in %.2f s%n", specs.length, geometry,
+                (System.nanoTime() - start) / 1e9);
+
+        DetectionSimulator.Result mc = null;
+        if (trials > 0) {
+            System.out.println("Checking against " + trials + " Monte Carlo trials (seed " + seed + ")");
+            mc = DetectionSimulator.run(trials, Runtime.getRuntime().availableProcessors(), seed, schemes, geometry);
+        }
+        print(specs, geometry, mc);
+    }
+}
+
+/*
+java Assignments.Assignment1.CrcAnalysis 1000000 42
+java Assignments.Assignment1.CrcAnalysis 0 0 crc16,crc32c,crc64
+java Assignments.Assignment1.CrcAnalysis 200000 42 crc8,crc16 1500
+ */
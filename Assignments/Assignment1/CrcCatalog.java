@@ -0,0 +1,128 @@
+package Assignments.Assignment1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Registry of CRC schemes in the Rocksoft / CRC RevEng parameter model.
+ * <p>
+ * Each entry carries width, poly, init, refin, refout, xorout and the check value
+ * (the CRC of the ASCII string "123456789"), which is verified when the entry is
+ * registered. Entries whose parameters match {@link CRC32} or {@link CRC32C}
+ * delegate to those JDK classes, which use hardware CRC instructions where
+ * available; every other entry runs on its cached table-driven {@link CrcEngine}.
+ * <p>
+ * Schemes are looked up by name, case-insensitively. The short names used on the
+ * wire (crc8, crc10, crc16, crc32, crc32c, crc64) are aliases of catalogue entries.
+ */
+public final class CrcCatalog {
+    private static final byte[] CHECK_INPUT = "123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final Map<String, Spec> BY_NAME = new LinkedHashMap<>();
+
+    public static final Spec CRC8 = register("CRC-8/SMBUS", 8, 0x07, 0x00, false, false, 0x00, 0xF4, "crc8");
+    public static final Spec CRC10 = register("CRC-10/ATM", 10, 0x233, 0x000, false, false, 0x000, 0x199, "crc10");
+    public static final Spec CRC16 = register("CRC-16/IBM-3740", 16, 0x1021, 0xFFFF, false, false, 0x0000, 0x29B1,
+            "crc16");
+    public static final Spec CRC32_ISO_HDLC = register("CRC-32/ISO-HDLC", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true,
+            0xFFFFFFFFL, 0xCBF43926L, "crc32");
+    public static final Spec CRC32_ISCSI = register("CRC-32/ISCSI", 32, 0x1EDC6F41L, 0xFFFFFFFFL, true, true,
+            0xFFFFFFFFL, 0xE3069283L, "crc32c");
+    public static final Spec CRC64_XZ = register("CRC-64/XZ", 64, 0x42F0E1EBA9EA3693L, -1L, true, true, -1L,
+            0x995DC9BBDF1939FAL, "crc64");
+    public static final Spec CRC64_ECMA_182 = register("CRC-64/ECMA-182", 64, 0x42F0E1EBA9EA3693L, 0L, false, false,
+            0L, 0x6C40DF5F0B497347L, "crc64ecma");
+
+    private CrcCatalog() {
+    }
+
+    // One catalogue entry; immutable and safe to share between threads
+    public static final class Spec {
+        public final String name;
+        public final int width;
+        public final long poly, init, xorout, check;
+        public final boolean refin, refout;
+        private final CrcEngine engine;
+        private final Supplier<Checksum> jdk; // non-null when a java.util.zip class computes this CRC
+
+        Spec(String name, int width, long poly, long init, boolean refin, boolean refout, long xorout, long check) {
+            long mask = (width == 64) ? -1L : ((1L << width) - 1);
+            this.name = name;
+            this.width = width;
+            this.poly = poly & mask;
+            this.init = init & mask;
+            this.refin = refin;
+            this.refout = refout;
+            this.xorout = xorout & mask;
+            this.check = check & mask;
+            this.engine = CrcEngine.of(width, this.poly, refin);
+            this.jdk = jdkChecksum(this);
+        }
+
+        public long compute(byte[] data, int off, int len) {
+            if (jdk != null) {
+                Checksum crc = jdk.get();
+                crc.update(data, off, len);
+                return crc.getValue();
+            }
+            return engine.compute(data, off, len, init, refout, xorout);
+        }
+
+        // True when compute() delegates to java.util.zip
+        public boolean intrinsic() {
+            return jdk != null;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static Supplier<Checksum> jdkChecksum(Spec s) {
+        boolean standard32 = s.width == 32 && s.refin && s.refout && s.init == 0xFFFFFFFFL && s.xorout == 0xFFFFFFFFL;
+        if (standard32 && s.poly == 0x04C11DB7L) {
+            return CRC32::new;
+        }
+        if (standard32 && s.poly == 0x1EDC6F41L) {
+            return CRC32C::new;
+        }
+        return null;
+    }
+
+    private static Spec register(String name, int width, long poly, long init, boolean refin, boolean refout,
+                                 long xorout, long check, String... aliases) {
+        Spec spec = new Spec(name, width, poly, init, refin, refout, xorout, check);
+        long actual = spec.compute(CHECK_INPUT, 0, CHECK_INPUT.length);
+        if (actual != spec.check) {
+            throw new IllegalStateException(name + " check value is 0x" + Long.toHexString(actual)
+                    + ", expected 0x" + Long.toHexString(spec.check));
+        }
+        BY_NAME.put(name.toLowerCase(Locale.ROOT), spec);
+        for (String alias : aliases) {
+            BY_NAME.put(alias, spec);
+        }
+        return spec;
+    }
+
+    // Looks a scheme up by catalogue name or alias
+    public static Spec lookup(String name) {
+        Spec spec = BY_NAME.get(name.toLowerCase(Locale.ROOT));
+        if (spec == null) {
+            throw new IllegalArgumentException("Unknown CRC scheme: " + name);
+        }
+        return spec;
+    }
+
+    public static boolean contains(String name) {
+        return BY_NAME.containsKey(name.toLowerCase(Locale.ROOT));
+    }
+
+    // Every entry once, in registration order
+    public static Collection<Spec> entries() {
+        return new LinkedHashSet<>(BY_NAME.values());
+    }
+}
@@ -0,0 +1,212 @@
+package Assignments.Assignment1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table-driven CRC engine.
+ * <p>
+ * One engine exists per (width, poly, refin) parameter set. It owns a 256-entry
+ * byte table and, for widths of 16 bits and more, the eight slice-by-8 tables that
+ * let {@link #update} consume eight input bytes per step. Engines are built lazily
+ * and cached, so the tables are generated only once per parameter set.
+ * <p>
+ * The register is kept in the engine's natural orientation: MSB-first for normal
+ * CRCs and LSB-first (bit-reversed) for reflected ones. Use {@link #start} and
+ * {@link #finish} to convert from and to the Rocksoft init/refout/xorout model.
+ */
+public final class CrcEngine {
+
+    // poly -> engines indexed by (width << 1 | refin)
+    private static final Map<Long, CrcEngine[]> ENGINES = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final boolean refin;
+    private final long mask;
+    private final long[][] tables; // tables[k][b]: byte b followed by k zero bytes
+
+    private CrcEngine(int width, long poly, boolean refin) {
+        this.width = width;
+        this.refin = refin;
+        this.mask = (width == 64) ? -1L : ((1L << width) - 1);
+
+        int slices = (width >= 16) ? 8 : 1;
+        tables = new long[slices][256];
+        long p = poly & mask;
+        if (refin) {
+            long rpoly = Long.reverse(p) >>> (64 - width);
+            for (int b = 0; b < 256; b++) {
+                long crc = b;
+                for (int i = 0; i < 8; i++) {
+                    crc = ((crc & 1) != 0) ? (crc >>> 1) ^ rpoly : crc >>> 1;
+                }
+                tables[0][b] = crc;
+            }
+            for (int k = 1; k < slices; k++) {
+                for (int b = 0; b < 256; b++) {
+                    long prev = tables[k - 1][b];
+                    tables[k][b] = (prev >>> 8) ^ tables[0][(int) (prev & 0xFF)];
+                }
+            }
+        } else {
+            long topBit = 1L << (width - 1);
+            for (int b = 0; b < 256; b++) {
+                long crc = ((long) b << (width - 8)) & mask;
+                for (int i = 0; i < 8; i++) {
+                    crc = ((crc & topBit) != 0) ? ((crc << 1) ^ p) & mask : (crc << 1) & mask;
+                }
+                tables[0][b] = crc;
+            }
+            for (int k = 1; k < slices; k++) {
+                for (int b = 0; b < 256; b++) {
+                    long prev = tables[k - 1][b];
+                    tables[k][b] = ((prev << 8) & mask) ^ tables[0][(int) ((prev >>> (width - 8)) & 0xFF)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached engine for the given parameters, building it on first use.
+     * Widths from 8 to 64 bits are supported.
+     */
+    public static CrcEngine of(int width, long poly, boolean refin) {
+        if (width < 8 || width > 64) {
+            throw new IllegalArgumentException("Unsupported CRC width: " + width);
+        }
+        long p = poly & ((width == 64) ? -1L : ((1L << width) - 1));
+        CrcEngine[] byWidth = ENGINES.computeIfAbsent(p, k -> new CrcEngine[130]);
+        int slot = (width << 1) | (refin ? 1 : 0);
+        CrcEngine engine = byWidth[slot];
+        if (engine == null) {
+            // a racing thread may build the same tables twice; both results are identical
+            engine = new CrcEngine(width, p, refin);
+            byWidth[slot] = engine;
+        }
+        return engine;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public boolean reflected() {
+        return refin;
+    }
+
+    // Converts a Rocksoft init value into the register orientation used by update()
+    public long start(long init) {
+        init &= mask;
+        return refin ? Long.reverse(init) >>> (64 - width) : init;
+    }
+
+    // Converts the register into the final CRC value
+    public long finish(long crc, boolean refout, long xorout) {
+        // a reflected register is already bit-reversed relative to the MSB-first result
+        if (refout != refin) {
+            crc = Long.reverse(crc) >>> (64 - width);
+        }
+        return (crc ^ xorout) & mask;
+    }
+
+    // Feeds a single byte into the register
+    public long update(long crc, int b) {
+        if (refin) {
+            return (crc >>> 8) ^ tables[0][(int) ((crc ^ b) & 0xFF)];
+        }
+        return ((crc << 8) & mask) ^ tables[0][(int) (((crc >>> (width - 8)) ^ b) & 0xFF)];
+    }
+
+    // Feeds data[off, off+len) into the register, eight bytes at a time where possible
+    public long update(long crc, byte[] data, int off, int len) {
+        int i = off;
+        int end = off + len;
+        if (tables.length == 8) {
+            long[] t0 = tables[0], t1 = tables[1], t2 = tables[2], t3 = tables[3];
+            long[] t4 = tables[4], t5 = tables[5], t6 = tables[6], t7 = tables[7];
+            if (refin) {
+                for (; i + 8 <= end; i += 8) {
+                    long x = crc ^ ((data[i] & 0xFFL)
+                            | (data[i + 1] & 0xFFL) << 8
+                            | (data[i + 2] & 0xFFL) << 16
+                            | (data[i + 3] & 0xFFL) << 24
+                            | (data[i + 4] & 0xFFL) << 32
+                            | (data[i + 5] & 0xFFL) << 40
+                            | (data[i + 6] & 0xFFL) << 48
+                            | (data[i + 7] & 0xFFL) << 56);
+                    crc = t7[(int) (x & 0xFF)]
+                            ^ t6[(int) ((x >>> 8) & 0xFF)]
+                            ^ t5[(int) ((x >>> 16) & 0xFF)]
+                            ^ t4[(int) ((x >>> 24) & 0xFF)]
+                            ^ t3[(int) ((x >>> 32) & 0xFF)]
+                            ^ t2[(int) ((x >>> 40) & 0xFF)]
+                            ^ t1[(int) ((x >>> 48) & 0xFF)]
+                            ^ t0[(int) (x >>> 56)];
+                }
+            } else {
+                int shift = 64 - width;
+                for (; i + 8 <= end; i += 8) {
+                    long x = (crc << shift) ^ ((data[i] & 0xFFL) << 56
+                            | (data[i + 1] & 0xFFL) << 48
+                            | (data[i + 2] & 0xFFL) << 40
+                            | (data[i + 3] & 0xFFL) << 32
+                            | (data[i + 4] & 0xFFL) << 24
+                            | (data[i + 5] & 0xFFL) << 16
+                            | (data[i + 6] & 0xFFL) << 8
+                            | (data[i + 7] & 0xFFL));
+                    crc = t7[(int) (x >>> 56)]
+                            ^ t6[(int) ((x >>> 48) & 0xFF)]
+                            ^ t5[(int) ((x >>> 40) & 0xFF)]
+                            ^ t4[(int) ((x >>> 32) & 0xFF)]
+                            ^ t3[(int) ((x >>> 24) & 0xFF)]
+                            ^ t2[(int) ((x >>> 16) & 0xFF)]
+                            ^ t1[(int) ((x >>> 8) & 0xFF)]
+                            ^ t0[(int) (x & 0xFF)];
+                }
+            }
+        }
+        for (; i < end; i++) {
+            crc = update(crc, data[i]);
+        }
+        return crc;
+    }
+
+    /**
+     * Feeds eight bytes packed big-endian into word (first byte in the top bits). Lets a
+     * caller read the data once and advance several registers from the same word.
+     */
+    public long updateWord(long crc, long word) {
+        if (tables.length != 8) {
+            for (int k = 56; k >= 0; k -= 8) {
+                crc = update(crc, (int) (word >>> k) & 0xFF);
+            }
+            return crc;
+        }
+        long[][] t = tables;
+        if (refin) {
+            long x = crc ^ Long.reverseBytes(word);
+            return t[7][(int) (x & 0xFF)]
+                    ^ t[6][(int) ((x >>> 8) & 0xFF)]
+                    ^ t[5][(int) ((x >>> 16) & 0xFF)]
+                    ^ t[4][(int) ((x >>> 24) & 0xFF)]
+                    ^ t[3][(int) ((x >>> 32) & 0xFF)]
+                    ^ t[2][(int) ((x >>> 40) & 0xFF)]
+                    ^ t[1][(int) ((x >>> 48) & 0xFF)]
+                    ^ t[0][(int) (x >>> 56)];
+        }
+        long x = (crc << (64 - width)) ^ word;
+        return t[7][(int) (x >>> 56)]
+                ^ t[6][(int) ((x >>> 48) & 0xFF)]
+                ^ t[5][(int) ((x >>> 40) & 0xFF)]
+                ^ t[4][(int) ((x >>> 32) & 0xFF)]
+                ^ t[3][(int) ((x >>> 24) & 0xFF)]
+                ^ t[2][(int) ((x >>> 16) & 0xFF)]
+                ^ t[1][(int) ((x >>> 8) & 0xFF)]
+                ^ t[0][(int) (x & 0xFF)];
+    }
+
+    // Full CRC over data using the Rocksoft parameter model
+    public long compute(byte[] data, int off, int len, long init, boolean refout, long xorout) {
+        return finish(update(start(init), data, off, len), refout, xorout);
+    }
+}
@@ -6,93 +6,65 @@ import java.util.*;
  * Error injection utilities.
  * <p>
  * - checksum: invert all bits
+ * - secded: contiguous burst of 1..5 * (check bits) bits within the code bits
  * - i <= degree: random unique flips (detectable)
  * - i > degree: construct error vector that is a multiple of generator polynomial g(x)
  * by XORing shifted copies of g(x) -> undetected by the CRC for that poly
  */
 public class CrcErrorInjector {
 
-    private static final Random rand = new Random();
-
-    private static class CRCParams {
-        final int degree;
-        final int poly; // lower-degree bits (same representation you used in computeCrc)
-
-        CRCParams(int degree, int poly) {
-            this.degree = degree;
-            this.poly = poly;
-        }
+    // Randomly flip `flips` distinct bits (if flips >= length => flip all bits)
+    private static BitFrame randomFlipBits(BitFrame data, int flips, SplittableRandom rnd,
+                                           ErrorPattern errors, int variant) {
+        ErrorInjector.flipDistinct(data, 0, data.length(), flips, rnd, errors, variant);
+        return data;
     }
 
-    // Return CRC params or null for checksum
-    private static CRCParams getCRCParams(int scheme) {
-        switch (scheme) {
-            case 0:
-                return null;
-            case 1:
-                return new CRCParams(8, 0x07);
-            case 2:
-                return new CRCParams(10, 0x233);
-            case 3:
-                return new CRCParams(16, 0x1021);
-            case 4:
-                return new CRCParams(32, 0x04C11DB7);
-            default:
-                throw new IllegalArgumentException("Unknown scheme: " + scheme);
-        }
-    }
 
-    // Flip bits in data in range [start, start+len)
-    private static String flipBits(String data, int start, int len) {
-        if (start < 0 || start + len > data.length()) {
-            throw new IllegalArgumentException("flipBits out of range");
-        }
-        char[] chars = data.toCharArray();
-        for (int i = 0; i < len; i++) {
-            int pos = start + i;
-            chars[pos] = (chars[pos] == '0') ? '1' : '0';
-        }
-        return new String(chars);
+    public static BitFrame getBurstError(BitFrame data, String scheme) {
+        return getBurstError(data, scheme, ErrorInjector.random());
     }
 
-    // Randomly flip `flips` distinct bits (if flips >= length => flip all bits)
-    private static String randomFlipBits(String data, int flips) {
-        char[] chars = data.toCharArray();
-        int length = chars.length;
-        if (flips >= length) {
-            for (int i = 0; i < length; i++) chars[i] = (chars[i] == '0') ? '1' : '0';
-            return new String(chars);
-        }
-        List<Integer> indices = new ArrayList<>(length);
-        for (int i = 0; i < length; i++) indices.add(i);
-        Collections.shuffle(indices, rand);
-        for (int j = 0; j < flips; j++) {
-            int pos = indices.get(j);
-            chars[pos] = (chars[pos] == '0') ? '1' : '0';
-        }
-        return new String(chars);
+    public static BitFrame getBurstError(BitFrame data, String scheme, SplittableRandom rnd) {
+        return getBurstError(data, scheme, FrameGeometry.DEFAULT, rnd);
     }
 
+    // scheme is "checksum", "secded" or a CrcCatalog name; geometry is the frame size data was encoded from
+    public static BitFrame getBurstError(BitFrame data, String scheme, FrameGeometry geometry, SplittableRandom rnd) {
+        return getBurstError(data, scheme, geometry, rnd, null, 0);
+    }
 
-    public static String getBurstError(String data, int scheme) {
-        CRCParams params = getCRCParams(scheme);
+    // As above, recording the flipped bits under variant of errors (which may be null)
+    public static BitFrame getBurstError(BitFrame data, String scheme, FrameGeometry geometry, SplittableRandom rnd,
+                                         ErrorPattern errors, int variant) {
         int length = data.length();
 
         // Decide burst length i
         int i;
-        if (params == null) { // checksum
+        if (Utils.isChecksum(scheme)) {
             // user requested "flip all bits" -> just invert everything
-            char[] arr = data.toCharArray();
-            for (int k = 0; k < arr.length; k++) arr[k] = (arr[k] == '0') ? '1' : '0';
-            return new String(arr);
+            ErrorInjector.flipRange(data, 0, length, errors, variant);
+            return data;
+        } else if (Utils.isSecded(scheme)) {
+            // Contiguous burst inside the code bits; distance 4 detects up to 3 flipped bits
+            Secded code = Secded.of(geometry);
+            i = Math.min(rnd.nextInt(code.checkBits() * 5) + 1, code.codeBits());
+            ErrorInjector.flipRange(data, rnd.nextInt(code.codeBits() - i + 1), i, errors, variant);
+            return data;
         } else {
-            int degree = params.degree;
-            i = rand.nextInt(degree * 5) + 1; // may be <= or > degree
+            CrcCatalog.Spec spec = CrcCatalog.lookup(scheme);
+            int degree = spec.width;
+            i = rnd.nextInt(degree * 5) + 1; // may be <= or > degree
             if (i > length) i = length;
             if (i <= degree) {
-                return randomFlipBits(data, i);
+                return randomFlipBits(data, i, rnd, errors, variant);
             } else {
-                return createUndetectedError(data, params.degree, params.poly, i);
+                if (errors == null) {
+                    // The pattern is still needed to confirm the syndrome
+                    errors = new ErrorPattern(1);
+                    variant = 0;
+                }
+                return createUndetectedError(data, CrcSyndrome.of(spec, geometry), spec, i, rnd, errors, variant);
             }
         }
     }
@@ -105,12 +77,21 @@ public class CrcErrorInjector {
      * The number of shifts is chosen so that the span (burst length) of the resulting
      * error is at least targetBurst. We choose overlapping shifts by 1 position to
      * make the final error contiguous (or near-contiguous) and ensure span >= targetBurst.
+     * <p>
+     * The copies are laid out in codeword order, restricted to the data and CRC bits the
+     * receiver actually checks, and mapped to frame bits through
+     * {@link CrcSyndrome#framePosition} so reflected CRCs are handled too. The flipped
+     * bits are recorded in errors, and the syndrome of everything recorded for the
+     * variant must come out zero.
      */
-    private static String createUndetectedError(String data, int degree, int poly, int targetBurst) {
-        final int dataLen = data.length();
+    private static BitFrame createUndetectedError(BitFrame data, CrcSyndrome syndrome, CrcCatalog.Spec spec,
+                                                  int targetBurst, SplittableRandom rnd,
+                                                  ErrorPattern errors, int variant) {
+        final int degree = spec.width;
+        final int dataLen = Math.min(data.length(), syndrome.checkedBits());
         final int gLen = degree + 1; // g_full has gLen bits
-        // Build g_full as a long: high bit is x^degree, low bits are 'poly' (degree bits)
-        long gFull = ((1L << degree) | (((long) poly) & ((1L << degree) - 1L)));
+        // g_full = x^degree + poly; the x^degree term is implicit so degree 64 still fits in a long
+        final long poly = spec.poly;
 
         // Number of shifted copies required to make span >= targetBurst
         int numShifts = Math.max(1, targetBurst - gLen + 1);
@@ -124,28 +105,32 @@ public class CrcErrorInjector {
         // Choose start so that last shifted copy fits inside data
         int maxStart = dataLen - gLen - (numShifts - 1);
         if (maxStart < 0) maxStart = 0;
-        int start = rand.nextInt(maxStart + 1);
-
-        // Build error boolean array by XORing shifted copies
-        boolean[] err = new boolean[dataLen];
+        int start = rnd.nextInt(maxStart + 1);
 
+        // XOR the shifted copies together first, bit k standing for codeword position start + k;
+        // overlapping copies cancel, so only the bits left set are flipped and recorded
+        int span = Math.min(gLen + numShifts - 1, dataLen - start);
+        long[] error = new long[(span + 63) >>> 6];
         for (int s = 0; s < numShifts; s++) {
-            int shiftPos = start + s;
             for (int j = 0; j < gLen; j++) {
-                int pos = shiftPos + j;
-                if (pos >= dataLen) break; // safety
-                // bit j of gFull when j counts MSB->LSB:
-                // MSB index in gFull is (gLen-1), so extract (gFull >> (gLen-1-j))
-                int gbit = (int) ((gFull >> (gLen - 1 - j)) & 1L);
-                if (gbit == 1) err[pos] = !err[pos]; // XOR in
+                int k = s + j;
+                if (k >= span) break; // safety
+                // bit j of gFull when j counts MSB->LSB: j = 0 is x^degree, then poly from its top bit
+                int gbit = (j == 0) ? 1 : (int) ((poly >>> (degree - j)) & 1L);
+                if (gbit == 1) {
+                    error[k >>> 6] ^= 1L << k;
+                }
             }
         }
-
-        // Apply error bits to data
-        char[] chars = data.toCharArray();
-        for (int k = 0; k < dataLen; k++) {
-            if (err[k]) chars[k] = (chars[k] == '0') ? '1' : '0';
+        for (int w = 0; w < error.length; w++) {
+            for (long bits = error[w]; bits != 0; bits &= bits - 1) {
+                int k = (w << 6) + Long.numberOfTrailingZeros(bits);
+                errors.flip(data, variant, syndrome.framePosition(start + k)); // XOR in
+            }
+        }
+        if (syndrome.syndrome(errors.positions(variant), errors.count(variant)) != 0) {
+            throw new IllegalStateException(spec.name + " error pattern at " + start + " would be detected");
         }
-        return new String(chars);
+        return data;
     }
 }
@@ -0,0 +1,116 @@
+package Assignments.Assignment1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Syndrome view of a catalogue CRC over the padded frame layout.
+ * <p>
+ * A CRC is affine in its message, so for a received frame r = c ^ e the check
+ * fails exactly when the syndrome of the error vector e is non-zero, whatever the
+ * transmitted codeword c was. The syndrome is the XOR of one precomputed column per
+ * flipped bit:
+ * <ul>
+ * <li>data bit p (p &lt; frame bits): the CRC (with init and xorout cancelled) of a
+ * message with only bit p set</li>
+ * <li>CRC field bit: that bit of the field</li>
+ * <li>padding bit: 0, the receiver never looks at it</li>
+ * </ul>
+ * {@link #syndrome(int[], int)} XORs those columns for the positions an
+ * {@link ErrorPattern} recorded, which is how {@link DetectionSimulator} scores CRC
+ * variants and how {@link CrcErrorInjector} confirms its undetected patterns;
+ * {@link CrcAnalysis} counts over the columns too. Frames whose error is not known
+ * are checked by recomputing the CRC ({@link #syndrome(BitFrame)}). The data
+ * columns are built back to front: the column of bit b of byte k is the register after
+ * the byte {@code 0x80 >>> b} followed by the zero bytes that come after byte k. That
+ * is one register update per column, so even jumbo frames are cheap to set up.
+ */
+public final class CrcSyndrome {
+    private static final Map<FrameGeometry, Map<CrcCatalog.Spec, CrcSyndrome>> BY_GEOMETRY =
+            new ConcurrentHashMap<>();
+
+    private final int width;
+    private final CrcCatalog.Spec spec;
+    private final FrameGeometry geometry;
+    private final int frameBits;
+    private final long[] columns;
+
+    private CrcSyndrome(CrcCatalog.Spec spec, FrameGeometry geometry) {
+        this.width = spec.width;
+        this.spec = spec;
+        this.geometry = geometry;
+        this.frameBits = geometry.frameBits;
+        this.columns = new long[geometry.crcFrameBits(spec)];
+
+        CrcEngine engine = CrcEngine.of(spec.width, spec.poly, spec.refin);
+        long[] registers = new long[8];
+        for (int b = 0; b < 8; b++) {
+            registers[b] = engine.update(engine.start(0), 0x80 >>> b);
+        }
+        for (int k = geometry.frameBytes - 1; k >= 0; k--) {
+            for (int b = 0; b < 8; b++) {
+                columns[k * 8 + b] = engine.finish(registers[b], spec.refout, 0);
+                registers[b] = engine.update(registers[b], 0);
+            }
+        }
+        for (int k = 0; k < width; k++) {
+            columns[frameBits + k] = 1L << (width - 1 - k);
+        }
+    }
+
+    // Syndromes over the default 60-byte frame
+    public static CrcSyndrome of(CrcCatalog.Spec spec) {
+        return of(spec, FrameGeometry.DEFAULT);
+    }
+
+    public static CrcSyndrome of(CrcCatalog.Spec spec, FrameGeometry geometry) {
+        return BY_GEOMETRY.computeIfAbsent(geometry, g -> new ConcurrentHashMap<>())
+                .computeIfAbsent(spec, s -> new CrcSyndrome(s, geometry));
+    }
+
+    public int width() {
+        return width;
+    }
+
+    // Bits covered by the check: the data plus the CRC field
+    public int checkedBits() {
+        return frameBits + width;
+    }
+
+    // Length of the encoded frame, padding included
+    public int encodedBits() {
+        return columns.length;
+    }
+
+    public long column(int pos) {
+        return columns[pos];
+    }
+
+    // Syndrome of the error that flips the first count frame bits listed in positions
+    public long syndrome(int[] positions, int count) {
+        long s = 0;
+        for (int i = 0; i < count; i++) {
+            s ^= columns[positions[i]];
+        }
+        return s;
+    }
+
+    // Syndrome of a received frame: the CRC recomputed over the whole frame XOR the received CRC field
+    public long syndrome(BitFrame received) {
+        return Utils.crc(received.bytes(), spec, geometry) ^ received.getBits(frameBits, width);
+    }
+
+    /**
+     * Frame bit carrying coefficient c of the codeword polynomial, counting from the
+     * highest-order coefficient. Reflected input feeds each data byte LSB first and
+     * reflected output stores the register reversed, so multiples of g(x) only stay
+     * undetected when laid out through this mapping.
+     */
+    public int framePosition(int c) {
+        if (c < frameBits) {
+            return spec.refin ? (c & ~7) | (7 - (c & 7)) : c;
+        }
+        int k = c - frameBits;
+        return frameBits + (spec.refout ? width - 1 - k : k);
+    }
+}
@@ -0,0 +1,218 @@
+package Assignments.Assignment1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Columnar store of per-frame detection results.
+ * <p>
+ * Each scheme keeps one growable {@code long[]} bitset (bit f set when frame f was
+ * flagged as erroneous) and error types live in a {@code byte[]}, so a frame costs
+ * one byte plus one bit per scheme. Per-(errorType, scheme) counters are updated as
+ * frames are recorded, so the summary can be read at any time without a pass over
+ * the frames. Frames may be recorded out of order and from several threads.
+ * <p>
+ * When a CSV writer is attached, rows are written as soon as every earlier frame has
+ * been recorded, and flushed with them, so the file grows in frame order while the
+ * run is in progress.
+ */
+public class DetectionResults implements Closeable {
+    static final int ERROR_TYPES = 5;
+
+    private final String[] schemes;
+    private final long[][] detectionCount;
+    private final long[] totalByErrorType = new long[ERROR_TYPES];
+    private long[][] detected; // [scheme] -> bitset over frame numbers
+    private long[] recorded;   // bitset of frames recorded so far
+    private byte[] errorTypes;
+    private int size;          // highest recorded frame number + 1
+    private long recordedCount;
+
+    private PrintWriter csv;
+    private int csvNext;       // next frame number to write
+
+    public DetectionResults(String[] schemes) {
+        this.schemes = schemes.clone();
+        this.detectionCount = new long[ERROR_TYPES][schemes.length];
+        this.detected = new long[schemes.length][16];
+        this.recorded = new long[16];
+        this.errorTypes = new byte[1024];
+    }
+
+    public String[] schemes() {
+        return schemes.clone();
+    }
+
+    /**
+     * Records a frame. Bit s of detectedMask is set when scheme s detected an error.
+     * Recording the same frame again replaces the earlier entry.
+     */
+    public synchronized void record(int frameNo, int errorType, long detectedMask) {
+        if (frameNo < 0) {
+            throw new IllegalArgumentException("Negative frame number " + frameNo);
+        }
+        ensureCapacity(frameNo + 1);
+        if ((recorded[frameNo >>> 6] & (1L << frameNo)) != 0) {
+            count(errorTypes[frameNo], currentMask(frameNo), -1);
+        } else {
+            recorded[frameNo >>> 6] |= 1L << frameNo;
+            recordedCount++;
+        }
+
+        errorTypes[frameNo] = (byte) errorType;
+        for (int s = 0; s < schemes.length; s++) {
+            if ((detectedMask & (1L << s)) != 0) {
+                detected[s][frameNo >>> 6] |= 1L << frameNo;
+            } else {
+                detected[s][frameNo >>> 6] &= ~(1L << frameNo);
+            }
+        }
+        count(errorType, detectedMask, 1);
+        size = Math.max(size, frameNo + 1);
+        drainCsv();
+    }
+
+    private void count(int errorType, long mask, int delta) {
+        if (errorType < 0 || errorType >= ERROR_TYPES) {
+            return; // unknown error types are stored but not summarised
+        }
+        totalByErrorType[errorType] += delta;
+        for (int s = 0; s < schemes.length; s++) {
+            if ((mask & (1L << s)) != 0) {
+                detectionCount[errorType][s] += delta;
+            }
+        }
+    }
+
+    private long currentMask(int frameNo) {
+        long mask = 0;
+        for (int s = 0; s < schemes.length; s++) {
+            if (detected(frameNo, s)) {
+                mask |= 1L << s;
+            }
+        }
+        return mask;
+    }
+
+    private void ensureCapacity(int frames) {
+        if (frames > errorTypes.length) {
+            errorTypes = Arrays.copyOf(errorTypes, Math.max(frames, errorTypes.length * 2));
+        }
+        int words = (frames + 63) >>> 6;
+        if (words > recorded.length) {
+            int grown = Math.max(words, recorded.length * 2);
+            recorded = Arrays.copyOf(recorded, grown);
+            for (int s = 0; s < schemes.length; s++) {
+                detected[s] = Arrays.copyOf(detected[s], grown);
+            }
+        }
+    }
+
+    // One past the highest frame number recorded so far
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long recordedFrames() {
+        return recordedCount;
+    }
+
+    public synchronized boolean isRecorded(int frameNo) {
+        return frameNo < size && (recorded[frameNo >>> 6] & (1L << frameNo)) != 0;
+    }
+
+    public synchronized int errorType(int frameNo) {
+        return errorTypes[frameNo];
+    }
+
+    public synchronized boolean detected(int frameNo, int scheme) {
+        return (detected[scheme][frameNo >>> 6] & (1L << frameNo)) != 0;
+    }
+
+    // Frames recorded with the given error type
+    public synchronized long total(int errorType) {
+        return totalByErrorType[errorType];
+    }
+
+    // Frames of the given error type that the scheme flagged
+    public synchronized long detections(int errorType, int scheme) {
+        return detectionCount[errorType][scheme];
+    }
+
+    public synchronized double rate(int errorType, int scheme) {
+        long n = totalByErrorType[errorType];
+        return n == 0 ? 0 : (double) detectionCount[errorType][scheme] / n;
+    }
+
+    /**
+     * Streams rows to the writer from now on: the header and every frame already
+     * recorded in order are written immediately, later frames as soon as all
+     * earlier ones are in. Each batch of rows is flushed as soon as it is written.
+     */
+    public synchronized void streamCsv(Writer out) {
+        csv = new PrintWriter(out);
+        csv.println("frame,errorType," + String.join(",", schemes));
+        csvNext = 0;
+        drainCsv();
+        csv.flush();
+    }
+
+    // Writes the rows that are now in order and flushes them if there were any
+    private void drainCsv() {
+        if (csv == null) {
+            return;
+        }
+        int first = csvNext;
+        while (csvNext < size && isRecorded(csvNext)) {
+            writeRow(csv, csvNext++);
+        }
+        if (csvNext != first) {
+            csv.flush();
+        }
+    }
+
+    private void writeRow(PrintWriter out, int frameNo) {
+        StringBuilder line = new StringBuilder().append(frameNo).append(',').append(errorTypes[frameNo]);
+        for (int s = 0; s < schemes.length; s++) {
+            line.append(',').append(detected(frameNo, s) ? 1 : 0);
+        }
+        out.println(line);
+    }
+
+    // Writes every recorded frame in order, skipping gaps
+    public synchronized void writeCsv(Writer out) {
+        PrintWriter pw = new PrintWriter(out);
+        pw.println("frame,errorType," + String.join(",", schemes));
+        for (int f = 0; f < size; f++) {
+            if (isRecorded(f)) {
+                writeRow(pw, f);
+            }
+        }
+        pw.flush();
+    }
+
+    /**
+     * Finishes the streamed CSV: frames still waiting behind a gap are written, the
+     * gaps skipped, and the writer closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (csv == null) {
+            return;
+        }
+        for (; csvNext < size; csvNext++) {
+            if (isRecorded(csvNext)) {
+                writeRow(csv, csvNext);
+            }
+        }
+        boolean failed = csv.checkError();
+        csv.close();
+        csv = null;
+        if (failed) {
+            throw new IOException("Failed writing detection CSV");
+        }
+    }
+}
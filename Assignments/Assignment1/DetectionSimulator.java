@@ -0,0 +1,199 @@
+package Assignments.Assignment1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static Assignments.Assignment1.Utils.*;
+
+/**
+ * In-memory Monte Carlo estimate of how often each scheme detects each error type.
+ * <p>
+ * Every trial builds a random frame (480 bits unless another {@link FrameGeometry}
+ * is given), encodes it with each scheme (by
+ * default the checksum and CRC-8/10/16/32), injects the error type for the trial number (trial % 5, as the
+ * Sender does) through {@link ErrorInjector}, and validates each variant. CRC variants
+ * are scored from the flipped positions the injector records: the error is caught
+ * exactly when its {@link CrcSyndrome} is non-zero, so no CRC is recomputed. The
+ * checksum and SECDED variants are validated like the Receiver does. Trials
+ * are split across worker threads that keep private counters; the counters are
+ * merged once all workers finish. Each worker draws frames and errors from its own
+ * stream split from the seed, so a run replays exactly for the same seed and
+ * thread count.
+ */
+public class DetectionSimulator {
+    static final String[] ERROR_TYPES = {"None", "Single", "Two", "Odd", "Burst"};
+
+    // Merged counters of one simulation run
+    public static class Result {
+        final String[] schemes;
+        final long[] totalByErrorType = new long[ERROR_TYPES.length];
+        final long[][] detectionCount;
+        long elapsedNanos;
+
+        Result(String[] schemes) {
+            this.schemes = schemes;
+            this.detectionCount = new long[ERROR_TYPES.length][schemes.length];
+        }
+
+        void merge(Result other) {
+            for (int e = 0; e < ERROR_TYPES.length; e++) {
+                totalByErrorType[e] += other.totalByErrorType[e];
+                for (int s = 0; s < schemes.length; s++) {
+                    detectionCount[e][s] += other.detectionCount[e][s];
+                }
+            }
+        }
+
+        public long trials(int errorType) {
+            return totalByErrorType[errorType];
+        }
+
+        public double rate(int errorType, int scheme) {
+            long n = totalByErrorType[errorType];
+            return n == 0 ? 0 : (double) detectionCount[errorType][scheme] / n;
+        }
+
+        // Half-width of the 95% normal-approximation confidence interval of rate()
+        public double margin(int errorType, int scheme) {
+            long n = totalByErrorType[errorType];
+            if (n == 0) return 0;
+            double p = rate(errorType, scheme);
+            return 1.96 * Math.sqrt(p * (1 - p) / n);
+        }
+    }
+
+    public static Result run(long trials, int threads, long seed) throws InterruptedException {
+        return run(trials, threads, seed, FrameBuilder.DEFAULT_SCHEMES);
+    }
+
+    // schemes: "checksum", "secded" or CrcCatalog names, validated like the Receiver does
+    public static Result run(long trials, int threads, long seed, String[] schemes) throws InterruptedException {
+        return run(trials, threads, seed, schemes, FrameGeometry.DEFAULT);
+    }
+
+    public static Result run(long trials, int threads, long seed, String[] schemes, FrameGeometry geometry)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        SplittableRandom root = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        try {
+            List<Future<Result>> parts = new ArrayList<>();
+            long perThread = trials / threads;
+            for (int t = 0; t < threads; t++) {
+                // Each worker runs a contiguous block of trial numbers
+                long first = t * perThread;
+                long count = (t == threads - 1) ? trials - first : perThread;
+                SplittableRandom rnd = root.split();
+                parts.add(pool.submit(() -> simulate(first, count, rnd, schemes, geometry)));
+            }
+
+            Result merged = new Result(schemes);
+            for (Future<Result> part : parts) {
+                merged.merge(part.get());
+            }
+            merged.elapsedNanos = System.nanoTime() - start;
+            return merged;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Result simulate(long first, long count, SplittableRandom rnd, String[] schemes,
+                                   FrameGeometry geometry) {
+        Result local = new Result(schemes);
+        FrameEncoder encoder = new FrameEncoder(schemes, geometry);
+        byte[] data = new byte[geometry.frameBytes];
+        BitFrame frame = new BitFrame(data, geometry.frameBits);
+        // Output frames are reused for every trial
+        BitFrame[] encoded = encoder.newOutputs();
+        List<BitFrame> variants = Arrays.asList(encoded);
+        ErrorPattern errors = new ErrorPattern(schemes.length);
+
+        // CRC variants are scored by syndrome; the others still go through detect()
+        CrcSyndrome[] syndromes = new CrcSyndrome[schemes.length];
+        BitFrame[] validated = new BitFrame[schemes.length];
+        for (int s = 0; s < schemes.length; s++) {
+            if (isChecksum(schemes[s]) || isSecded(schemes[s])) {
+                validated[s] = encoded[s];
+            } else {
+                syndromes[s] = CrcSyndrome.of(CrcCatalog.lookup(schemes[s]), geometry);
+            }
+        }
+
+        for (long trial = first; trial < first + count; trial++) {
+            rnd.nextBytes(data);
+            encoder.encode(frame, encoded);
+
+            int errorType = (int) (trial % ERROR_TYPES.length);
+            errors.clear();
+            ErrorInjector.injectError(variants, schemes, geometry, errorType, rnd, errors);
+
+            local.totalByErrorType[errorType]++;
+            long detected = encoder.detect(validated);
+            for (int s = 0; s < schemes.length; s++) {
+                if (syndromes[s] != null && syndromes[s].syndrome(errors.positions(s), errors.count(s)) != 0) {
+                    detected |= 1L << s;
+                }
+                if ((detected & (1L << s)) != 0) {
+                    local.detectionCount[errorType][s]++;
+                }
+            }
+        }
+        return local;
+    }
+
+    static void print(Result result) {
+        System.out.println("\n" + "=".repeat(96));
+        System.out.println("                           MONTE CARLO DETECTION RATES (95% CI)");
+        System.out.println("=".repeat(96));
+        System.out.printf("%-8s %-12s", "Error", "Trials");
+        for (String scheme : result.schemes) {
+            System.out.printf(" %-14s", isChecksum(scheme) ? "Checksum" : scheme.toUpperCase());
+        }
+        System.out.println();
+        System.out.println("-".repeat(96));
+
+        for (int e = 0; e < ERROR_TYPES.length; e++) {
+            System.out.printf("%-8s %-12d", ERROR_TYPES[e], result.trials(e));
+            for (int s = 0; s < result.schemes.length; s++) {
+                System.out.printf(" %-14s", String.format("%.2f%%+/-%.2f",
+                        result.rate(e, s) * 100, result.margin(e, s) * 100));
+            }
+            System.out.println();
+        }
+
+        long total = 0;
+        for (long n : result.totalByErrorType) {
+            total += n;
+        }
+        double seconds = result.elapsedNanos / 1e9;
+        System.out.println("=".repeat(96));
+        System.out.printf("%d trials in %.2f s (%.0f trials/s)%n", total, seconds, total / seconds);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long trials = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        String[] schemes = args.length > 3 ? args[3].split(",") : FrameBuilder.DEFAULT_SCHEMES;
+        FrameGeometry geometry = args.length > 4 ? FrameGeometry.of(Integer.parseInt(args[4])) : FrameGeometry.DEFAULT;
+
+        System.out.println("Simulating " + trials + " trials on " + threads + " threads (seed " + seed + ", "
+                + geometry + ")");
+        print(run(trials, threads, seed, schemes, geometry));
+    }
+}
+
+/*
+java Assignments.Assignment1.DetectionSimulator 100000000 8
+java Assignments.Assignment1.DetectionSimulator 1000000 8 42 checksum,crc32,crc32c,crc64
+java Assignments.Assignment1.DetectionSimulator 100000 8 42 checksum,crc32,secded 9000
+ */
@@ -2,160 +2,277 @@ package Assignments.Assignment1;
 
 import java.util.*;
 
+/**
+ * Error models applied in place to the scheme variants of a frame.
+ * <p>
+ * Every routine draws from an explicit {@link SplittableRandom}, so a run can be
+ * replayed from its seed. The overloads without one use a per-thread stream split
+ * from the root seed set with {@link #setSeed}; {@link #random(long)} gives each frame
+ * number a stream of its own, so frames can be corrupted in any order or on any
+ * thread and still get the same errors. Distinct positions are sampled with
+ * Floyd's algorithm over a per-thread scratch bitmap, so no routine allocates.
+ * <p>
+ * The overloads taking an {@link ErrorPattern} also record every bit they flip,
+ * under the index of the variant in the list; pass null to skip that.
+ */
 public class ErrorInjector {
-    private static Random rand = new Random();
-    private static List<List<String >> errorInjectedFrameList;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
 
-    // Flip a single bit at position 'pos'
-    private static String flipBit(String data, int pos) {
-        char[] bits = data.toCharArray();
-        bits[pos] = (bits[pos] == '0') ? '1' : '0';
-        return new String(bits);
+    private static SplittableRandom root = new SplittableRandom();
+    private static volatile long frameSeed = root.nextLong();
+    private static volatile ThreadLocal<SplittableRandom> threadRandom = newThreadRandom();
+    private static final ThreadLocal<long[]> scratch = ThreadLocal.withInitial(() -> new long[8]);
+
+    private static ThreadLocal<SplittableRandom> newThreadRandom() {
+        return ThreadLocal.withInitial(() -> {
+            synchronized (ErrorInjector.class) {
+                return root.split();
+            }
+        });
+    }
+
+    // Reseeds the per-thread streams; threads pick up a new stream on their next call
+    public static synchronized void setSeed(long seed) {
+        root = new SplittableRandom(seed);
+        frameSeed = root.nextLong();
+        threadRandom = newThreadRandom();
+    }
+
+    // This thread's injection stream
+    public static SplittableRandom random() {
+        return threadRandom.get();
+    }
+
+    /**
+     * The stream for one frame number, independent of the thread and of other frames.
+     * Seeding with frameSeed + n * gamma alone would make frame n+1's stream frame n's
+     * shifted by one draw; split() mixes that into a fresh seed and gamma.
+     */
+    public static SplittableRandom random(long frameNo) {
+        return new SplittableRandom(frameSeed + frameNo * GOLDEN_GAMMA).split();
     }
 
-    // Flips k random bits
-    public static String flipKBits(String data, int k) {
-        int len = 100;
+    /**
+     * Flips k distinct bits chosen uniformly from [from, from+len) using Floyd's
+     * sampling: for i in [len-k, len) pick j in [0, i]; take j unless already taken,
+     * otherwise take i.
+     */
+    static void flipDistinct(BitFrame data, int from, int len, int k, SplittableRandom rnd) {
+        flipDistinct(data, from, len, k, rnd, null, 0);
+    }
 
-        // Select k distinct positions
-        Set<Integer> positions = new HashSet<>();
-        while (positions.size() < k) {
-            positions.add(rand.nextInt(len));
+    static void flipDistinct(BitFrame data, int from, int len, int k, SplittableRandom rnd,
+                             ErrorPattern errors, int variant) {
+        if (k >= len) {
+            flipRange(data, from, len, errors, variant);
+            return;
         }
+        long[] taken = scratch.get();
+        if (taken.length * 64 < len) {
+            taken = new long[(len + 63) >>> 6];
+            scratch.set(taken);
+        }
+        for (int i = len - k; i < len; i++) {
+            int j = rnd.nextInt(i + 1);
+            if ((taken[j >>> 6] & (1L << j)) != 0) {
+                j = i;
+            }
+            taken[j >>> 6] |= 1L << j;
+            flip(data, from + j, errors, variant);
+        }
+        // Reset the bitmap for the next call
+        for (int w = 0; w < ((len + 63) >>> 6); w++) {
+            taken[w] = 0;
+        }
+    }
 
-        // Flip bits at the chosen positions
-        char[] bits = data.toCharArray();
-        for (int pos : positions) {
-            bits[pos] = (bits[pos] == '0') ? '1' : '0';
+    static void flip(BitFrame data, int pos, ErrorPattern errors, int variant) {
+        if (errors == null) {
+            data.flip(pos);
+        } else {
+            errors.flip(data, variant, pos);
         }
+    }
+
+    static void flipRange(BitFrame data, int from, int len, ErrorPattern errors, int variant) {
+        if (errors == null) {
+            data.flipRange(from, len);
+        } else {
+            errors.flipRange(data, variant, from, len);
+        }
+    }
 
-        return new String(bits);
+    // Flips k random bits anywhere in the frame
+    public static BitFrame flipKBits(BitFrame data, int k) {
+        return flipKBits(data, k, random());
     }
 
-    // 1. Single-bit error
-    public static void singleBitError(List<String> frames,int i) {
-        int pos = rand.nextInt(100);
-        for(String frame : frames){
-            errorInjectedFrameList.get(i).add(flipBit(frame, pos));
+    public static BitFrame flipKBits(BitFrame data, int k, SplittableRandom rnd) {
+        return flipKBits(data, k, data.length(), rnd);
+    }
+
+    // Flips k random bits among the first bits of the frame
+    public static BitFrame flipKBits(BitFrame data, int k, int bits, SplittableRandom rnd) {
+        flipDistinct(data, 0, bits, k, rnd);
+        return data;
+    }
+
+    // 1. Single-bit error, at the same frame bit in every variant
+    public static void singleBitError(List<BitFrame> frames, SplittableRandom rnd) {
+        singleBitError(frames, FrameGeometry.DEFAULT, rnd);
+    }
+
+    public static void singleBitError(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd) {
+        singleBitError(frames, geometry, rnd, null);
+    }
+
+    public static void singleBitError(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd,
+                                      ErrorPattern errors) {
+        int pos = rnd.nextInt(geometry.frameBits);
+        for(int j=0;j<frames.size();j++){
+            flip(frames.get(j), pos, errors, j);
         }
     }
 
     // 2. Two isolated single-bit errors
-    public static void twoBitError(List<String> frames,int i) {
-        for (String frame : frames) {
-            // 50% chance to do random two-bit flips
-            if (rand.nextDouble() < 0.20) {
-                errorInjectedFrameList.get(i).add(flipKBits(frame,2));
+    public static void twoBitError(List<BitFrame> frames, SplittableRandom rnd) {
+        twoBitError(frames, FrameGeometry.DEFAULT, rnd);
+    }
+
+    public static void twoBitError(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd) {
+        twoBitError(frames, geometry, rnd, null);
+    }
+
+    public static void twoBitError(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd,
+                                   ErrorPattern errors) {
+        for (int v = 0; v < frames.size(); v++) {
+            BitFrame frame = frames.get(v);
+            // 20% chance to do random two-bit flips
+            if (rnd.nextDouble() < 0.20) {
+                flipDistinct(frame, 0, geometry.frameBits, 2, rnd, errors, v);
             } else {
                 // delegate to your special 2-bit error constructor
-                errorInjectedFrameList.get(i).add(twoBitError(frame));
+                twoBitError(frame, errors, v);
             }
         }
     }
 
-    public static String twoBitError(String frame) {
-        if (frame.length() != 512) {
-            throw new IllegalArgumentException("Input must be exactly 512 bits");
-        }
+    /**
+     * Flips the first differing bit of the first pair of distinct 16-bit words in the
+     * frame. The first such pair in (i, j) order always has i = 0: if some word differs
+     * from word 0 that word is the partner, and if none does all words are equal and
+     * no pair exists. So one linear scan replaces the pairwise comparison.
+     */
+    public static BitFrame twoBitError(BitFrame frame) {
+        return twoBitError(frame, null, 0);
+    }
 
-        final int SEQ_COUNT = 32;  // number of 16-bit sequences in 512 bits
+    private static BitFrame twoBitError(BitFrame frame, ErrorPattern errors, int variant) {
         final int SEQ_LEN = 16;
-
-        // Split into 16-bit chunks
-        String[] sequences = new String[SEQ_COUNT];
-        for (int i = 0; i < SEQ_COUNT; i++) {
-            sequences[i] = frame.substring(i * SEQ_LEN, (i + 1) * SEQ_LEN);
+        final int SEQ_COUNT = frame.length() / SEQ_LEN; // whole 16-bit sequences in the frame
+        if (SEQ_COUNT < 2) {
+            throw new IllegalArgumentException("Input must be at least 32 bits");
         }
 
-        // Keep track of indices and bit positions to flip
-        int flipsDone = 0;
-
-        outer:
-        for (int i = 0; i < SEQ_COUNT && flipsDone < 2; i++) {
-            for (int j = i + 1; j < SEQ_COUNT && flipsDone < 2; j++) {
-                String s1 = sequences[i];
-                String s2 = sequences[j];
-
-                // Find first differing bit position
-                int differingBit = -1;
-                for (int bit = 0; bit < SEQ_LEN; bit++) {
-                    if (s1.charAt(bit) != s2.charAt(bit)) {
-                        differingBit = bit;
-                        break;
-                    }
-                }
-
-                if (differingBit != -1) {
-                    // Flip bit in s1 if we still need flips
-                    if (flipsDone < 2) {
-                        sequences[i] = flipBit(s1, differingBit);
-                        flipsDone++;
-                    }
-                    // Flip bit in s2 if we still need flips
-                    if (flipsDone < 2) {
-                        sequences[j] = flipBit(s2, differingBit);
-                        flipsDone++;
-                    }
-                    if (flipsDone >= 2) {
-                        break outer;
-                    }
-                }
+        byte[] bytes = frame.bytes();
+
+        int first = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+        for (int j = 1; j < SEQ_COUNT; j++) {
+            int word = ((bytes[2 * j] & 0xFF) << 8) | (bytes[2 * j + 1] & 0xFF);
+            int diff = first ^ word;
+            if (diff != 0) {
+                // Bit index counted from the MSB of the 16-bit word
+                int differingBit = Integer.numberOfLeadingZeros(diff) - (32 - SEQ_LEN);
+                flip(frame, differingBit, errors, variant);
+                flip(frame, j * SEQ_LEN + differingBit, errors, variant);
+                break;
             }
         }
 
-        // Recombine sequences into full 512-bit string
-        StringBuilder result = new StringBuilder(512);
-        for (String seq : sequences) {
-            result.append(seq);
-        }
-        return result.toString();
+        return frame;
     }
 
     // 3. Odd number of errors (e.g., 3 random flips)
-    public static void oddErrors(List<String> frames, int i) {
-        for(String frame : frames){
-            errorInjectedFrameList.get(i).add(flipKBits(frame, 1));
+    public static void oddErrors(List<BitFrame> frames, SplittableRandom rnd) {
+        oddErrors(frames, FrameGeometry.DEFAULT, rnd);
+    }
+
+    public static void oddErrors(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd) {
+        oddErrors(frames, geometry, rnd, null);
+    }
+
+    public static void oddErrors(List<BitFrame> frames, FrameGeometry geometry, SplittableRandom rnd,
+                                 ErrorPattern errors) {
+        for(int j=0;j<frames.size();j++){
+            flipDistinct(frames.get(j), 0, geometry.frameBits, 1, rnd, errors, j);
         }
     }
 
-    // 4. Burst error (flip a contiguous block of bits)
-    public static void burstError(List<String> frames,int i) {
+    // 4. Burst error (flip a contiguous block of bits); schemes[j] names the scheme of frames[j]
+    public static void burstError(List<BitFrame> frames, String[] schemes, SplittableRandom rnd) {
+        burstError(frames, schemes, FrameGeometry.DEFAULT, rnd);
+    }
+
+    public static void burstError(List<BitFrame> frames, String[] schemes, FrameGeometry geometry,
+                                  SplittableRandom rnd) {
+        burstError(frames, schemes, geometry, rnd, null);
+    }
+
+    public static void burstError(List<BitFrame> frames, String[] schemes, FrameGeometry geometry,
+                                  SplittableRandom rnd, ErrorPattern errors) {
         for(int j=0;j<frames.size();j++){
-            errorInjectedFrameList.get(i).add(CrcErrorInjector.getBurstError(frames.get(j),j));
+            CrcErrorInjector.getBurstError(frames.get(j), schemes[j], geometry, rnd, errors, j);
         }
     }
 
     // Dispatcher: choose error type by name
-    public static List<List<String>> injectError(List<List<String>> frameList) {
-        errorInjectedFrameList = new ArrayList<>();
+    public static List<List<BitFrame>> injectError(List<List<BitFrame>> frameList) {
         for (int i = 0; i < frameList.size(); i++) {
-            List<String> frames = frameList.get(i);
-            errorInjectedFrameList.add(new ArrayList<>());
-            int ch = i%5;
-            switch(ch){
-                case 0:
-                    noneType(frames,i);
-                    break;
-                case 1:
-                    singleBitError(frames,i);
-                    break;
-                case 2:
-                    twoBitError(frames,i);
-                    break;
-                case 3:
-                    oddErrors(frames,i);
-                    break;
-                case 4:
-                    burstError(frames,i);
-                    break;
-            }
+            injectError(frameList.get(i), i);
         }
-        return errorInjectedFrameList;
+        return frameList;
+    }
+
+    // Injects the error type for frame number i (i%5) into all scheme variants of one frame, in place
+    public static List<BitFrame> injectError(List<BitFrame> frames, int i) {
+        return injectError(frames, i, random());
+    }
+
+    public static List<BitFrame> injectError(List<BitFrame> frames, long i, SplittableRandom rnd) {
+        return injectError(frames, FrameBuilder.DEFAULT_SCHEMES, i, rnd);
+    }
+
+    public static List<BitFrame> injectError(List<BitFrame> frames, String[] schemes, long i, SplittableRandom rnd) {
+        return injectError(frames, schemes, FrameGeometry.DEFAULT, i, rnd);
+    }
+
+    // Single, odd and random two-bit errors land anywhere in the frame data (the header and payload bits)
+    public static List<BitFrame> injectError(List<BitFrame> frames, String[] schemes, FrameGeometry geometry, long i,
+                                             SplittableRandom rnd) {
+        return injectError(frames, schemes, geometry, i, rnd, null);
     }
 
-    private static void noneType(List<String> frames,int i) {
-        for(String frame:frames){
-            errorInjectedFrameList.get(i).add(frame);
+    // As above, recording the flipped bits of frames.get(j) under variant j of errors
+    public static List<BitFrame> injectError(List<BitFrame> frames, String[] schemes, FrameGeometry geometry, long i,
+                                             SplittableRandom rnd, ErrorPattern errors) {
+        int ch = (int) (i%5);
+        switch(ch){
+            case 0:
+                // no error
+                break;
+            case 1:
+                singleBitError(frames,geometry,rnd,errors);
+                break;
+            case 2:
+                twoBitError(frames,geometry,rnd,errors);
+                break;
+            case 3:
+                oddErrors(frames,geometry,rnd,errors);
+                break;
+            case 4:
+                burstError(frames,schemes,geometry,rnd,errors);
+                break;
         }
+        return frames;
     }
 }
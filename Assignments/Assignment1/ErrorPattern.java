@@ -0,0 +1,58 @@
+package Assignments.Assignment1;
+
+import java.util.Arrays;
+
+/**
+ * Frame bit positions flipped by {@link ErrorInjector}, kept per scheme variant of one
+ * frame.
+ * <p>
+ * A CRC check fails exactly when the XOR of the {@link CrcSyndrome} columns of the
+ * flipped bits is non-zero, so these positions are enough to tell whether a CRC
+ * variant will be caught without recomputing its CRC. A bit flipped twice is listed
+ * twice; its columns cancel like the flips do. Reuse one pattern from frame to frame
+ * with {@link #clear()}.
+ */
+public final class ErrorPattern {
+    private final int[][] positions;
+    private final int[] counts;
+
+    public ErrorPattern(int variants) {
+        this.positions = new int[variants][16];
+        this.counts = new int[variants];
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    // Flips one bit of the variant and records it
+    void flip(BitFrame frame, int variant, int pos) {
+        frame.flip(pos);
+        add(variant, pos);
+    }
+
+    // Flips bits [start, start+len) of the variant and records them
+    void flipRange(BitFrame frame, int variant, int start, int len) {
+        frame.flipRange(start, len);
+        for (int pos = start; pos < start + len; pos++) {
+            add(variant, pos);
+        }
+    }
+
+    private void add(int variant, int pos) {
+        int[] list = positions[variant];
+        if (counts[variant] == list.length) {
+            list = positions[variant] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[counts[variant]++] = pos;
+    }
+
+    // Positions flipped in the variant; only the first count(variant) entries are valid
+    public int[] positions(int variant) {
+        return positions[variant];
+    }
+
+    public int count(int variant) {
+        return counts[variant];
+    }
+}
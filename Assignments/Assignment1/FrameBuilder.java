@@ -1,99 +1,270 @@
 package Assignments.Assignment1;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.*;
-
-import static Assignments.Assignment1.Utils.getChecksum;
-import static Assignments.Assignment1.Utils.getCrc;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class FrameBuilder {
+    static final String[] DEFAULT_SCHEMES = {"checksum", "crc8", "crc10", "crc16", "crc32"};
+    static final int CHUNK_FRAMES = 512; // frames per fork/join leaf in createFrames
 
     /**
-     * Represents a 60-byte frame (480 bits) as a binary string.
+     * Lazily yields each frame's scheme variants (by default checksum, crc8, crc10,
+     * crc16, crc32) with the error for that frame number already injected. Errors
+     * come from {@link ErrorInjector#random(long)}, so the frames match createFrames.
      */
-    public static class Frame {
-        private final String bits;    // 480-character string of '0'/'1'
+    public static class FrameStream implements Iterator<List<BitFrame>>, Closeable {
+        private final FrameSource source;
+        private final String[] schemes;
+        private final FrameGeometry geometry;
+        private final FrameEncoder encoder;
+        private long frameNo;
+
+        FrameStream(FrameSource source, String[] schemes, FrameGeometry geometry) {
+            this.source = source;
+            this.schemes = schemes;
+            this.geometry = geometry;
+            this.encoder = new FrameEncoder(schemes, geometry);
+        }
+
+        public String[] schemes() {
+            return schemes.clone();
+        }
+
+        public FrameGeometry geometry() {
+            return geometry;
+        }
 
-        public Frame(String bits) {
-            this.bits = bits;
+        public long frameCount() {
+            return source.frameCount();
         }
 
-        public String getBits() {
-            return bits;
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public List<BitFrame> next() {
+            // Fresh outputs per frame: callers may keep every frame
+            List<BitFrame> variants = encoder.encode(source.next());
+            long i = frameNo++;
+            return ErrorInjector.injectError(variants, schemes, geometry, i, ErrorInjector.random(i));
         }
 
         @Override
-        public String toString() {
-            return bits;
+        public void close() throws IOException {
+            source.close();
         }
     }
 
-    static List<Frame> frames;
-    static List<List<String>> frameList;
+    public static FrameStream streamFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            byte[] LEN
+    ) throws IOException {
+        return streamFrames(inputFilePath, senderMacAddress, receiveMacAddress, LEN, DEFAULT_SCHEMES);
+    }
 
+    // schemes: "checksum", "secded" or CrcCatalog names, one variant per entry
+    public static FrameStream streamFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            byte[] LEN,
+            String[] schemes
+    ) throws IOException {
+        return streamFrames(inputFilePath, senderMacAddress, receiveMacAddress, LEN, schemes, FrameGeometry.DEFAULT);
+    }
 
-    public static List<List<String>> createFrames(
+    // Frames of the given geometry; the LEN field is the payload length, 16-bit big-endian
+    public static FrameStream streamFrames(
             String inputFilePath,
-            String senderMacAddress,
-            String receiveMacAddress,
-            String LEN
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            String[] schemes,
+            FrameGeometry geometry
     ) throws IOException {
-        final int PAYLOAD_CHARS = 46;
-        final int FRAME_BITS = 60 * 8;  // 480 bits
-        frames = new ArrayList<>();
-
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(inputFilePath))) {
-            char[] buffer = new char[PAYLOAD_CHARS];
-            int readCount;
-            while ((readCount = reader.read(buffer)) != -1) {
-                // Convert up to 46 chars to bits
-                StringBuilder payloadBits = new StringBuilder(PAYLOAD_CHARS * 8);
-                for (int i = 0; i < readCount; i++) {
-                    String bin = String.format("%8s", Integer.toBinaryString(buffer[i] & 0xFF))
-                            .replace(' ', '0');
-                    payloadBits.append(bin);
-                }
-                // Pad final chunk with zeros if needed
-                int missing = PAYLOAD_CHARS - readCount;
-                for (int i = 0; i < missing; i++) {
-                    payloadBits.append("00000000");
-                }
+        return streamFrames(inputFilePath, senderMacAddress, receiveMacAddress, geometry.lengthField(), schemes,
+                geometry);
+    }
 
-                // Build full 480-bit frame string
-                String frameBits = senderMacAddress
-                        + receiveMacAddress
-                        + LEN
-                        + payloadBits.toString();
-
-                // Sanity check
-                if (frameBits.length() != FRAME_BITS) {
-                    throw new IllegalStateException(
-                            "Frame length is " + frameBits.length() + " bits, expected " + FRAME_BITS
-                    );
-                }
+    private static FrameStream streamFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            byte[] LEN,
+            String[] schemes,
+            FrameGeometry geometry
+    ) throws IOException {
+        byte[] header = header(senderMacAddress, receiveMacAddress, LEN, schemes, geometry);
+        return new FrameStream(new FrameSource(Paths.get(inputFilePath), header, geometry.payloadBytes),
+                schemes.clone(), geometry);
+    }
 
-                frames.add(new Frame(frameBits));
+    private static byte[] header(
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            byte[] LEN,
+            String[] schemes,
+            FrameGeometry geometry
+    ) {
+        for (String scheme : schemes) {
+            if (!Utils.isKnownScheme(scheme)) {
+                throw new IllegalArgumentException("Unknown scheme: " + scheme);
             }
         }
+        final int HEADER_BYTES = senderMacAddress.length + receiveMacAddress.length + LEN.length;
 
-        calculateCorrectionMethods(frames);
-        return ErrorInjector.injectError(frameList);
+        // Sanity check
+        if (HEADER_BYTES + geometry.payloadBytes != geometry.frameBytes) {
+            throw new IllegalStateException(
+                    "Frame length is " + (HEADER_BYTES + geometry.payloadBytes) * 8 + " bits, expected "
+                            + geometry.frameBits
+            );
+        }
 
+        byte[] header = new byte[HEADER_BYTES];
+        int off = 0;
+        System.arraycopy(senderMacAddress, 0, header, off, senderMacAddress.length);
+        off += senderMacAddress.length;
+        System.arraycopy(receiveMacAddress, 0, header, off, receiveMacAddress.length);
+        off += receiveMacAddress.length;
+        System.arraycopy(LEN, 0, header, off, LEN.length);
+        return header;
     }
 
-    private static void calculateCorrectionMethods(List<Frame> frames) {
-        frameList = new ArrayList<>();
-        for (int i = 0; i < frames.size(); i++) {
-            frameList.add(new ArrayList<>());
-            String frame = frames.get(i).getBits();
-            frameList.get(i).add(getChecksum(frame));
-            frameList.get(i).add(getCrc(frame, 8));
-            frameList.get(i).add(getCrc(frame, 10));
-            frameList.get(i).add(getCrc(frame, 16));
-            frameList.get(i).add(getCrc(frame, 32));
+    /**
+     * Builds every frame up front on the common fork/join pool; prefer streamFrames
+     * for inputs that do not fit in memory. The frames, errors included, are the ones
+     * streamFrames yields, in the same order.
+     */
+    public static List<List<BitFrame>> createFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            byte[] LEN
+    ) throws IOException {
+        byte[] header = header(senderMacAddress, receiveMacAddress, LEN, DEFAULT_SCHEMES, FrameGeometry.DEFAULT);
+        return createFrames(Paths.get(inputFilePath), header, DEFAULT_SCHEMES.clone(), FrameGeometry.DEFAULT,
+                ForkJoinPool.commonPool());
+    }
+
+    public static List<List<BitFrame>> createFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            String[] schemes,
+            FrameGeometry geometry
+    ) throws IOException {
+        return createFrames(inputFilePath, senderMacAddress, receiveMacAddress, schemes, geometry,
+                ForkJoinPool.commonPool());
+    }
+
+    public static List<List<BitFrame>> createFrames(
+            String inputFilePath,
+            byte[] senderMacAddress,
+            byte[] receiveMacAddress,
+            String[] schemes,
+            FrameGeometry geometry,
+            ForkJoinPool pool
+    ) throws IOException {
+        byte[] header = header(senderMacAddress, receiveMacAddress, geometry.lengthField(), schemes, geometry);
+        return createFrames(Paths.get(inputFilePath), header, schemes.clone(), geometry, pool);
+    }
+
+    private static List<List<BitFrame>> createFrames(
+            Path input,
+            byte[] header,
+            String[] schemes,
+            FrameGeometry geometry,
+            ForkJoinPool pool
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long count = (size + geometry.payloadBytes - 1) / geometry.payloadBytes;
+            if (count > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many frames to build up front: " + count);
+            }
+            // Filled up front so the leaves only set their own slots, never resize the list
+            List<List<BitFrame>> frames = new ArrayList<>(Collections.nCopies((int) count, null));
+            try {
+                pool.invoke(new EncodeChunks(channel, size, header, schemes, geometry, frames, 0, (int) count));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return frames;
         }
     }
 
+    /**
+     * Encodes frames [from, to) into their slots of the shared result list, splitting
+     * in half down to {@link #CHUNK_FRAMES}. A leaf reads its chunk of the input with
+     * one positional read, which is safe from many threads. It then encodes every
+     * frame with its own {@link FrameEncoder} and injects each frame's errors from that
+     * frame's own stream. Slots are disjoint and join() publishes them, so the result
+     * keeps file order without any locking.
+     */
+    private static final class EncodeChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
+        private final FileChannel channel;
+        private final long size;
+        private final byte[] header;
+        private final String[] schemes;
+        private final FrameGeometry geometry;
+        private final List<List<BitFrame>> frames;
+        private final int from, to;
+
+        EncodeChunks(FileChannel channel, long size, byte[] header, String[] schemes, FrameGeometry geometry,
+                     List<List<BitFrame>> frames, int from, int to) {
+            this.channel = channel;
+            this.size = size;
+            this.header = header;
+            this.schemes = schemes;
+            this.geometry = geometry;
+            this.frames = frames;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_FRAMES) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EncodeChunks(channel, size, header, schemes, geometry, frames, from, mid),
+                        new EncodeChunks(channel, size, header, schemes, geometry, frames, mid, to));
+                return;
+            }
+            int payloadBytes = geometry.payloadBytes;
+            long start = (long) from * payloadBytes;
+            // The last chunk may end mid-payload; its tail stays zero, as in FrameSource
+            ByteBuffer chunk = ByteBuffer.allocate((to - from) * payloadBytes);
+            chunk.limit((int) Math.min(chunk.capacity(), size - start));
+            try {
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, start + chunk.position()) < 0) {
+                        throw new EOFException("Input shrank while building frames");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            byte[] payloads = chunk.array();
+            FrameEncoder encoder = new FrameEncoder(schemes, geometry);
+            for (int f = from; f < to; f++) {
+                byte[] frameBytes = new byte[geometry.frameBytes];
+                System.arraycopy(header, 0, frameBytes, 0, header.length);
+                System.arraycopy(payloads, (f - from) * payloadBytes, frameBytes, header.length, payloadBytes);
+                List<BitFrame> variants = encoder.encode(new BitFrame(frameBytes, geometry.frameBits));
+                frames.set(f, ErrorInjector.injectError(variants, schemes, geometry, f, ErrorInjector.random(f)));
+            }
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package Assignments.Assignment1;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encodes frames of one {@link FrameGeometry} with a fixed list of schemes in one pass
+ * over their bytes.
+ * <p>
+ * Each 8-byte word of the frame is read once and fed to the checksum accumulator
+ * and to every table-driven CRC register. CRCs that {@link CrcCatalog} delegates to
+ * java.util.zip are computed by their intrinsic afterwards, which is faster than any
+ * table. SECDED check bits come from {@link Secded}'s byte tables. Results are written
+ * into caller-owned output frames that can be reused from frame to frame.
+ * <p>
+ * {@link #encode(BitFrame, BitFrame[])} keeps register state in the encoder, so use
+ * one encoder per thread; {@link #detect} only updates a thread-safe counter and may
+ * be shared.
+ */
+public final class FrameEncoder {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final String[] schemes;
+    private final FrameGeometry geometry;
+    private final int frameBytes;
+    private final CrcCatalog.Spec[] specs;   // null for the checksum and SECDED
+    private final Secded[] secded;           // non-null for SECDED
+    private final int[] frameBits;           // output length per scheme
+    private final int[] fused;               // schemes whose registers run in the shared loop
+    private final CrcEngine[] engines;       // engines of the fused schemes
+    private final long[] registers;
+    private final long[] values;             // per-scheme check value of the last encode
+    private final LongAdder corrections = new LongAdder();
+
+    public FrameEncoder(String[] schemes) {
+        this(schemes, FrameGeometry.DEFAULT);
+    }
+
+    public FrameEncoder(String[] schemes, FrameGeometry geometry) {
+        this.schemes = schemes.clone();
+        this.geometry = geometry;
+        this.frameBytes = geometry.frameBytes;
+        this.specs = new CrcCatalog.Spec[schemes.length];
+        this.frameBits = new int[schemes.length];
+        this.secded = new Secded[schemes.length];
+        this.values = new long[schemes.length];
+
+        int[] fusedSchemes = new int[schemes.length];
+        int count = 0;
+        for (int s = 0; s < schemes.length; s++) {
+            if (Utils.isChecksum(schemes[s])) {
+                frameBits[s] = geometry.paddedBits;
+                continue;
+            }
+            if (Utils.isSecded(schemes[s])) {
+                secded[s] = Secded.of(geometry);
+                frameBits[s] = secded[s].encodedBits();
+                continue;
+            }
+            specs[s] = CrcCatalog.lookup(schemes[s]);
+            frameBits[s] = geometry.crcFrameBits(specs[s]);
+            if (!specs[s].intrinsic()) {
+                fusedSchemes[count++] = s;
+            }
+        }
+        this.fused = Arrays.copyOf(fusedSchemes, count);
+        this.engines = new CrcEngine[count];
+        for (int k = 0; k < count; k++) {
+            CrcCatalog.Spec spec = specs[fused[k]];
+            engines[k] = CrcEngine.of(spec.width, spec.poly, spec.refin);
+        }
+        this.registers = new long[count];
+    }
+
+    public String[] schemes() {
+        return schemes.clone();
+    }
+
+    public FrameGeometry geometry() {
+        return geometry;
+    }
+
+    // Fresh output frames of the right length for every scheme
+    public BitFrame[] newOutputs() {
+        BitFrame[] out = new BitFrame[schemes.length];
+        for (int s = 0; s < schemes.length; s++) {
+            out[s] = new BitFrame(frameBits[s]);
+        }
+        return out;
+    }
+
+    // Encodes into newly allocated frames, one per scheme
+    public List<BitFrame> encode(BitFrame frame) {
+        BitFrame[] out = newOutputs();
+        encode(frame, out);
+        List<BitFrame> variants = new ArrayList<>(out.length);
+        for (BitFrame variant : out) {
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    /**
+     * Writes the frame followed by each scheme's check value into out[s], which must
+     * come from {@link #newOutputs()} (or have the same lengths). Previous contents of
+     * out are overwritten, padding included.
+     */
+    public void encode(BitFrame frame, BitFrame[] out) {
+        if (frame.length() != geometry.frameBits) {
+            throw new IllegalArgumentException("Frame must be exactly " + geometry.frameBits + " bits");
+        }
+        byte[] data = frame.bytes();
+
+        for (int k = 0; k < fused.length; k++) {
+            CrcCatalog.Spec spec = specs[fused[k]];
+            registers[k] = engines[k].start(spec.init);
+        }
+
+        // One pass: every word goes to the checksum and to all fused CRC registers
+        long sum = 0;
+        int i = 0;
+        for (; i + 8 <= frameBytes; i += 8) {
+            long word = (long) LONGS.get(data, i);
+            sum += (word >>> 32) + (word & 0xFFFFFFFFL);
+            for (int k = 0; k < engines.length; k++) {
+                registers[k] = engines[k].updateWord(registers[k], word);
+            }
+        }
+        for (; i + 2 <= frameBytes; i += 2) {
+            int hi = data[i] & 0xFF, lo = data[i + 1] & 0xFF;
+            sum += (hi << 8) | lo;
+            for (int k = 0; k < engines.length; k++) {
+                registers[k] = engines[k].update(engines[k].update(registers[k], hi), lo);
+            }
+        }
+        if (i < frameBytes) {
+            // Odd-length frame: the last byte is the high half of a zero-padded word
+            int hi = data[i] & 0xFF;
+            sum += hi << 8;
+            for (int k = 0; k < engines.length; k++) {
+                registers[k] = engines[k].update(registers[k], hi);
+            }
+        }
+
+        for (int k = 0; k < fused.length; k++) {
+            CrcCatalog.Spec spec = specs[fused[k]];
+            values[fused[k]] = engines[k].finish(registers[k], spec.refout, spec.xorout);
+        }
+        for (int s = 0; s < schemes.length; s++) {
+            if (secded[s] != null) {
+                values[s] = secded[s].checkBits(data);
+            } else if (specs[s] == null) {
+                values[s] = ~InternetChecksum.fold(sum) & 0xFFFF;
+            } else if (specs[s].intrinsic()) {
+                values[s] = specs[s].compute(data, 0, frameBytes);
+            }
+        }
+
+        for (int s = 0; s < schemes.length; s++) {
+            byte[] bytes = out[s].bytes();
+            System.arraycopy(data, 0, bytes, 0, frameBytes);
+            Arrays.fill(bytes, frameBytes, bytes.length, (byte) 0);
+            out[s].setBits(geometry.frameBits, checkBits(s), values[s]);
+        }
+    }
+
+    private int checkBits(int s) {
+        if (secded[s] != null) {
+            return secded[s].checkBits();
+        }
+        return specs[s] == null ? 16 : specs[s].width;
+    }
+
+    /**
+     * Validates received variants (received[s] encoded with scheme s, null when it was
+     * not sent). Bit s of the result is set when scheme s detected an error. SECDED
+     * variants with a single-bit error are corrected in place and still count as
+     * detected.
+     */
+    public long detect(BitFrame[] received) {
+        long detected = 0;
+        for (int s = 0; s < schemes.length; s++) {
+            BitFrame frame = received[s];
+            if (frame == null) {
+                continue;
+            }
+            int result;
+            if (secded[s] != null) {
+                int status = secded[s].decode(frame);
+                if (status == Secded.CORRECTED) {
+                    corrections.increment();
+                }
+                result = status == Secded.CLEAN ? 0 : 1;
+            } else {
+                result = (specs[s] == null) ? Utils.validateCheckSum(frame, geometry)
+                        : Utils.validateCrc(frame, specs[s], geometry);
+            }
+            if (result == 1) {
+                detected |= 1L << s;
+            }
+        }
+        return detected;
+    }
+
+    // SECDED frames corrected in place by detect() so far
+    public long corrections() {
+        return corrections.sum();
+    }
+}
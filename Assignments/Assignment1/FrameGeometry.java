@@ -0,0 +1,71 @@
+package Assignments.Assignment1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size of a frame: a 14-byte header (sender MAC, receiver MAC and a 16-bit
+ * big-endian payload length) followed by the payload.
+ * <p>
+ * Every encoder, validator and error injector sizes itself from a geometry instead of
+ * the fixed 60-byte frame, so payloads can range from 1 byte up to 9000-byte jumbo
+ * frames. Encoded frames are padded to {@link #paddedBits} (the frame plus at least
+ * 16 bits, rounded up to 64), or further when a check value does not fit. Instances
+ * are interned, so they can be compared with == and used as cache keys.
+ */
+public final class FrameGeometry {
+    public static final int MAC_BYTES = 6;
+    public static final int HEADER_BYTES = 2 * MAC_BYTES + 2;
+    public static final int MAX_PAYLOAD = 9000;
+    public static final int DEFAULT_PAYLOAD = 46;
+
+    private static final Map<Integer, FrameGeometry> BY_PAYLOAD = new ConcurrentHashMap<>();
+
+    public static final FrameGeometry DEFAULT = of(DEFAULT_PAYLOAD);
+
+    public final int payloadBytes;
+    public final int frameBytes;
+    public final int frameBits;
+    public final int paddedBits;
+
+    private FrameGeometry(int payloadBytes) {
+        this.payloadBytes = payloadBytes;
+        this.frameBytes = HEADER_BYTES + payloadBytes;
+        this.frameBits = frameBytes * 8;
+        this.paddedBits = (frameBits + 16 + 63) & ~63;
+    }
+
+    public static FrameGeometry of(int payloadBytes) {
+        if (payloadBytes < 1 || payloadBytes > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload must be 1.." + MAX_PAYLOAD + " bytes, got " + payloadBytes);
+        }
+        return BY_PAYLOAD.computeIfAbsent(payloadBytes, FrameGeometry::new);
+    }
+
+    // Geometry of an unencoded frame of the given length
+    public static FrameGeometry ofFrameBits(int frameBits) {
+        if (frameBits % 8 != 0 || frameBits <= HEADER_BYTES * 8) {
+            throw new IllegalArgumentException("Not a frame length: " + frameBits + " bits");
+        }
+        return of(frameBits / 8 - HEADER_BYTES);
+    }
+
+    // Length of a frame carrying a check value of the given width
+    public int encodedBits(int checkBits) {
+        return Math.max(paddedBits, (frameBits + checkBits + 7) & ~7);
+    }
+
+    public int crcFrameBits(CrcCatalog.Spec spec) {
+        return encodedBits(spec.width);
+    }
+
+    // The LEN header field
+    public byte[] lengthField() {
+        return new byte[]{(byte) (payloadBytes >>> 8), (byte) payloadBytes};
+    }
+
+    @Override
+    public String toString() {
+        return payloadBytes + "-byte payload (" + frameBits + "-bit frame)";
+    }
+}
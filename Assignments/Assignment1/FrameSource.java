@@ -0,0 +1,82 @@
+package Assignments.Assignment1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily cuts an input file into header + payload frames.
+ * <p>
+ * The file is walked through a memory-mapped {@link FileChannel} one window at a
+ * time, so heap use and time-to-first-frame do not depend on the file size. The
+ * window is a whole number of payloads, so no frame straddles two mappings.
+ */
+public class FrameSource implements Iterator<BitFrame>, Closeable {
+    private static final long MAP_WINDOW = 64L << 20; // 64 MiB per mapping
+
+    private final FileChannel channel;
+    private final byte[] header;
+    private final int payloadBytes;
+    private final long size;
+    private final long window;
+
+    private MappedByteBuffer mapped;
+    private long mappedEnd;  // file offset just past the current mapping
+    private long position;   // file offset of the next payload
+
+    public FrameSource(Path path, byte[] header, int payloadBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.header = header.clone();
+        this.payloadBytes = payloadBytes;
+        this.size = channel.size();
+        this.window = Math.max(1, MAP_WINDOW / payloadBytes) * payloadBytes;
+    }
+
+    // Number of frames the whole file yields; the last one may be zero padded
+    public long frameCount() {
+        return (size + payloadBytes - 1) / payloadBytes;
+    }
+
+    public int frameBits() {
+        return (header.length + payloadBytes) * 8;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < size;
+    }
+
+    @Override
+    public BitFrame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            if (position >= mappedEnd) {
+                long length = Math.min(window, size - position);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                mappedEnd = position + length;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map input at offset " + position, e);
+        }
+
+        byte[] frameBytes = new byte[header.length + payloadBytes];
+        System.arraycopy(header, 0, frameBytes, 0, header.length);
+        int count = (int) Math.min(payloadBytes, size - position);
+        mapped.get(frameBytes, header.length, count);
+        position += count;
+        return new BitFrame(frameBytes, frameBytes.length * 8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,119 @@
+package Assignments.Assignment1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * RFC 1071 one's complement checksum over packed bytes.
+ * <p>
+ * One's complement addition is associative and commutative, so carries do not have
+ * to be folded after every 16-bit word: the scalar path adds the two 32-bit halves
+ * of each big-endian 64-bit word into a long and folds once at the end. For large
+ * inputs an optional Vector API path ({@code Assignments.Assignment1.vector}) is used
+ * when it was compiled and {@code jdk.incubator.vector} is available at runtime.
+ * <p>
+ * The implementation is chosen with {@code -Dchecksum.impl=auto|scalar|vector};
+ * {@code auto} (the default) uses the vector path for inputs of at least
+ * {@link #VECTOR_THRESHOLD} bytes when it could be loaded.
+ */
+public final class InternetChecksum {
+    static final int VECTOR_THRESHOLD = 512;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final String IMPL = System.getProperty("checksum.impl", "auto");
+    private static final MethodHandle VECTOR_SUM = loadVectorSum();
+
+    private InternetChecksum() {
+    }
+
+    // Looks up the vector implementation; null when it was not compiled or the module is missing
+    private static MethodHandle loadVectorSum() {
+        if (IMPL.equals("scalar")) {
+            return null;
+        }
+        try {
+            Class<?> impl = Class.forName("Assignments.Assignment1.vector.VectorChecksum");
+            MethodHandle sum = MethodHandles.publicLookup().findStatic(impl, "sum",
+                    MethodType.methodType(long.class, byte[].class, int.class, int.class));
+            // Run it once now, so a missing module fails here rather than mid-transfer, and check it
+            // against the scalar sum. Odd offset and length cover the tails; the unfolded sums may
+            // group carries differently, so the folded values are compared
+            byte[] probe = new byte[VECTOR_THRESHOLD + 5];
+            for (int i = 0; i < probe.length; i++) {
+                probe[i] = (byte) (i * 31 + 7);
+            }
+            long vector = (long) sum.invokeExact(probe, 1, VECTOR_THRESHOLD + 3);
+            if (fold(vector) != fold(sumScalar(probe, 1, VECTOR_THRESHOLD + 3))) {
+                System.err.println("Vector checksum disagrees with the scalar one, using scalar");
+                return null;
+            }
+            return sum;
+        } catch (Throwable e) {
+            if (IMPL.equals("vector")) {
+                System.err.println("Vector checksum unavailable, using scalar: " + e);
+            }
+            return null;
+        }
+    }
+
+    // Name of the implementation used for inputs of the given length
+    public static String implementation(int len) {
+        return useVector(len) ? "vector" : "scalar";
+    }
+
+    private static boolean useVector(int len) {
+        if (VECTOR_SUM == null) {
+            return false;
+        }
+        return IMPL.equals("vector") || len >= VECTOR_THRESHOLD;
+    }
+
+    // Checksum of data[off, off+len): the one's complement of the one's complement sum
+    public static int compute(byte[] data, int off, int len) {
+        return ~fold(sum(data, off, len)) & 0xFFFF;
+    }
+
+    // Unfolded sum of the big-endian 16-bit words; an odd last byte is padded with zero
+    public static long sum(byte[] data, int off, int len) {
+        if (useVector(len)) {
+            try {
+                return (long) VECTOR_SUM.invokeExact(data, off, len);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Vector checksum failed", e);
+            }
+        }
+        return sumScalar(data, off, len);
+    }
+
+    /**
+     * Word-wide scalar sum. Each step adds at most 2^33, so the long cannot overflow
+     * for any array length.
+     */
+    public static long sumScalar(byte[] data, int off, int len) {
+        long sum = 0;
+        int i = off;
+        int end = off + len;
+        for (; i + 8 <= end; i += 8) {
+            long v = (long) LONGS.get(data, i);
+            sum += (v >>> 32) + (v & 0xFFFFFFFFL);
+        }
+        for (; i + 2 <= end; i += 2) {
+            sum += ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+        }
+        if (i < end) {
+            sum += (data[i] & 0xFF) << 8;
+        }
+        return sum;
+    }
+
+    // Folds the carries back into the low 16 bits
+    public static int fold(long sum) {
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xFFFF) + (sum >>> 16);
+        }
+        return (int) sum;
+    }
+}
@@ -4,38 +4,78 @@ import static Assignments.Assignment1.Utils.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class Receiver {
-    private static final String[] SCHEMES = {"checksum", "crc8", "crc10", "crc16", "crc32"};
-    private static final int[] CRC_WIDTHS = {8, 10, 16, 32}; // corresponding to crc8, crc10, crc16, crc32
-    protected static List<List<Integer>> detectedFrames; // error_type is_detected for all types
-
-    public Receiver() {
-        detectedFrames = new ArrayList<>();
+    protected static String[] schemeNames = FrameBuilder.DEFAULT_SCHEMES; // announced by the sender
+    private static final String CSV_PATH = "Assignments/Assignment1/detected_frames.csv";
+    private static final long SUMMARY_EVERY = 100_000;
+    protected static DetectionResults detectedFrames; // error type and per-scheme detection of every frame
+    private static ThreadPoolExecutor validators; // validates frames off the socket-reading thread
+    private static FrameEncoder checker; // schemes resolved once; detect() is safe to share between workers
+
+    private static void checkFrame(int frameNo, int errorType, BitFrame[] schemes) {
+        // Bit i set when scheme i (e.g. checksum, crc8, crc10, crc16, crc32) detected an error;
+        // a scheme not sent for this frame counts as not detected
+        long detected = checker.detect(schemes);
+
+        // Workers finish out of order; the store places the entry by frame number
+        detectedFrames.record(frameNo, errorType, detected);
     }
 
-    private static void checkFrame(ArrayList<String> currentFrame) {
-        int frameNo = Integer.parseInt(currentFrame.get(0));
-        int errorType = Integer.parseInt(currentFrame.get(1));
+    /**
+     * Creates the result store once the sender has announced its schemes and starts
+     * streaming rows to the CSV as frames come in.
+     */
+    private static void startResults(String[] schemes, FrameGeometry geometry) {
+        schemeNames = schemes;
+        checker = new FrameEncoder(schemes, geometry);
+        detectedFrames = new DetectionResults(schemes);
+        try {
+            detectedFrames.streamCsv(new BufferedWriter(new FileWriter(CSV_PATH)));
+        } catch (IOException e) {
+            System.err.println("Could not open " + CSV_PATH + ", results kept in memory only: " + e.getMessage());
+        }
+    }
 
-        // Ensure we have enough space in detectedFrames
-        while (detectedFrames.size() <= frameNo) {
-            detectedFrames.add(new ArrayList<>());
+    // Prints the running summary every SUMMARY_EVERY frames
+    private static void progress(long received) {
+        if (received % SUMMARY_EVERY == 0) {
+            printDetectionSummary(detectedFrames);
         }
+    }
+
+    /**
+     * Fixed pool of validation workers fed through a bounded queue. When the queue is
+     * full the reading thread blocks, which pushes back on the sender through TCP.
+     */
+    private static ThreadPoolExecutor newValidationPool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "frame-validator");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (task, pool) -> {
+                    try {
+                        pool.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while queueing frame", e);
+                    }
+                });
+    }
 
-        // Clear and initialize the frame entry: [errorType, checksum_result, crc8_result, crc10_result, crc16_result, crc32_result]
-        detectedFrames.get(frameNo).clear();
-        detectedFrames.get(frameNo).add(errorType);
-
-        for (int i = 2; i <= 6; i++) {
-            String frame = currentFrame.get(i);
-            if (i == 2) {
-                // Checksum validation
-                detectedFrames.get(frameNo).add(validateCheckSum(frame));
-            } else {
-                // CRC validation (i-3 gives us index 0,1,2,3 for crc8,crc10,crc16,crc32)
-                detectedFrames.get(frameNo).add(validateCrc(frame, CRC_WIDTHS[i - 3]));
+    // Waits until every submitted frame has been validated
+    private static void awaitValidation() {
+        validators.shutdown();
+        try {
+            if (!validators.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("Timed out waiting for frame validation");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -43,66 +83,34 @@ public class Receiver {
     // Main
     public static void main(String[] args) throws IOException {
         if (args.length < 1) {
-            System.err.println("Usage: java Assignments.Assignment1.Receiver <port>");
+            System.err.println("Usage: java Assignments.Assignment1.Receiver <port> [ackEvery] [ackDelayMs] [validatorThreads]");
             return;
         
         
         }
 
         int port = Integer.parseInt(args[0]);
-        Receiver receiver = new Receiver();
+        // Cumulative ACK policy for pipelined senders: every K frames or after T ms
+        int ackEvery = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        long ackDelayMs = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        validators = newValidationPool(threads, threads * 64);
 
         try (ServerSocket serverSocket = new ServerSocket(port)) {
             System.out.println("Receiver listening on port " + port);
 
             try (Socket clientSocket = serverSocket.accept();
-                 BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                 PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)) {
+                 BufferedInputStream in = new BufferedInputStream(clientSocket.getInputStream());
+                 OutputStream out = clientSocket.getOutputStream()) {
 
                 System.out.println("Client connected: " + clientSocket.getInetAddress());
 
-                // Read total number of frames
-                String totalFramesStr = in.readLine();
-                int totalFrames = Integer.parseInt(totalFramesStr);
-                System.out.println("Expecting " + totalFrames + " frames");
-
-                // Process each frame one by one
-                for (int expectedFrame = 0; expectedFrame < totalFrames; expectedFrame++) {
-                    // ArrayList to store current frame data: [frameNumber, errorType, checksum, crc8, crc10, crc16, crc32]
-                    ArrayList<String> currentFrame = new ArrayList<>();
-
-                    // Read frame header
-                    String frameLine = in.readLine();
-                    String frameNumber = frameLine.split(":")[1];
-                    currentFrame.add(frameNumber);
-
-                    // Read error type
-                    String errorLine = in.readLine();
-                    String errorType = errorLine.split(":")[1];
-                    currentFrame.add(errorType);
-
-                    // Read all 5 schemes
-                    for (int i = 0; i < 5; i++) {
-                        String schemeLine = in.readLine();
-                        String schemeData = schemeLine.split(":", 2)[1]; // Get data part after first ":"
-                        currentFrame.add(schemeData);
-                    }
-
-                    // Read end frame marker
-                    String endFrame = in.readLine();
-
-                    // Now currentFrame contains: [frameNumber, errorType, checksum_data, crc8_data, crc10_data, crc16_data, crc32_data]
-                    System.out.println("Received Frame " + frameNumber + " with error type " + errorType);
-
-                    // Pass to your checking function here
-                    checkFrame(currentFrame); // You can call your function here
-
-                    // Send acknowledgment after processing this frame
-                    out.println("ACK");
+                if (WireProtocol.isBinary(in)) {
+                    receiveBinary(new DataInputStream(in), out, ackEvery, ackDelayMs);
+                } else {
+                    receiveText(new BufferedReader(new InputStreamReader(in)), new PrintWriter(out, true),
+                            ackEvery, ackDelayMs);
                 }
-
-                // Read end transmission
-                String endTransmission = in.readLine();
                 System.out.println("All frames received successfully!");
 
             } catch (IOException e) {
@@ -111,17 +119,121 @@ public class Receiver {
         } catch (IOException e) {
             System.err.println("Could not listen on port " + port + ": " + e.getMessage());
         }
-        // In your main, after END_TRANSMISSION:
+        awaitValidation();
+        if (detectedFrames == null) {
+            return; // no sender ever announced itself
+        }
+        // In your main, after END_TRANSMISSION: rows were streamed, write out the rest
         try {
-            String csvPath = "Assignments/Assignment1/detected_frames.csv";
-            exportDetectedFramesCsv(csvPath);
+            detectedFrames.close();
 
             System.out.println("CSV exported and Python analysis complete.");
         } catch (Exception e) {
             System.err.println("Failed to run post-processing: " + e.getMessage());
         }
 
-        prettyDisplay();
+        prettyDisplay(detectedFrames);
+        if (Arrays.stream(schemeNames).anyMatch(Utils::isSecded)) {
+            System.out.println("SECDED corrected " + checker.corrections() + " frames in place");
+        }
+    }
+
+    private static void receiveText(BufferedReader in, PrintWriter out, int ackEvery, long ackDelayMs)
+            throws IOException {
+        // Read total number of frames, optionally followed by ":<window>" from a pipelined
+        // sender, ":<schemes>" when the sender does not use the default schemes and
+        // ":<payloadBytes>" when the frames are not the default 60 bytes
+        String[] handshake = in.readLine().split(":");
+        long totalFrames = Long.parseLong(handshake[0]);
+        int window = handshake.length > 1 ? Integer.parseInt(handshake[1]) : 0;
+        FrameGeometry geometry = handshake.length > 3 ? FrameGeometry.of(Integer.parseInt(handshake[3]))
+                : FrameGeometry.DEFAULT;
+        startResults(handshake.length > 2 ? handshake[2].split(",") : FrameBuilder.DEFAULT_SCHEMES, geometry);
+        System.out.println("Expecting " + totalFrames + " frames" + (window > 0 ? " with window " + window : "")
+                + " using " + String.join(", ", schemeNames)
+                + (geometry != FrameGeometry.DEFAULT ? ", " + geometry : ""));
+
+        AckScheduler acks = (window == 0)
+                ? new AckScheduler(frameNo -> out.println("ACK"), 1, 0)
+                // a batch larger than the window could never fill
+                : new AckScheduler(frameNo -> out.println("ACK:" + frameNo), Math.min(ackEvery, window), ackDelayMs);
+
+        // Process each frame one by one
+        for (long expectedFrame = 0; expectedFrame < totalFrames; expectedFrame++) {
+            // Read frame header
+            String frameLine = in.readLine();
+            String frameNumber = frameLine.split(":")[1];
+
+            // Read error type
+            String errorLine = in.readLine();
+            String errorType = errorLine.split(":")[1];
+
+            // Read one line per scheme, e.g. [checksum, crc8, crc10, crc16, crc32]
+            String[] schemeData = new String[schemeNames.length];
+            for (int i = 0; i < schemeNames.length; i++) {
+                String schemeLine = in.readLine();
+                schemeData[i] = schemeLine.split(":", 2)[1]; // Get data part after first ":"
+            }
+
+            // Read end frame marker
+            String endFrame = in.readLine();
+
+            System.out.println("Received Frame " + frameNumber + " with error type " + errorType);
+
+            int frameNo = Integer.parseInt(frameNumber);
+            int errorNo = Integer.parseInt(errorType);
+            // Parsing and validation happen on the worker pool
+            validators.execute(() -> {
+                BitFrame[] schemes = new BitFrame[schemeData.length];
+                for (int i = 0; i < schemeData.length; i++) {
+                    schemes[i] = BitFrame.fromBitString(schemeData[i]);
+                }
+                checkFrame(frameNo, errorNo, schemes);
+            });
+
+            // Acknowledge according to the sender's mode
+            acks.received(frameNo);
+            progress(expectedFrame + 1);
+        }
+        acks.close();
+
+        // Read end transmission
+        String endTransmission = in.readLine();
+    }
+
+    private static void receiveBinary(DataInputStream in, OutputStream out, int ackEvery, long ackDelayMs)
+            throws IOException {
+        WireProtocol.Header header = WireProtocol.readHeader(in);
+        long totalFrames = header.frameCount;
+        startResults(header.schemes, header.geometry);
+        System.out.println("Expecting " + totalFrames + " frames (binary protocol)"
+                + (header.window > 0 ? " with window " + header.window : "")
+                + " using " + String.join(", ", schemeNames)
+                + (header.geometry != FrameGeometry.DEFAULT ? ", " + header.geometry : ""));
+
+        DataOutputStream ackOut = new DataOutputStream(new BufferedOutputStream(out));
+        AckScheduler acks = (header.window == 0)
+                ? new AckScheduler(frameNo -> {
+                    ackOut.write(WireProtocol.ACK);
+                    ackOut.flush();
+                }, 1, 0)
+                : new AckScheduler(frameNo -> {
+                    ackOut.write(WireProtocol.ACK);
+                    ackOut.writeInt(frameNo);
+                    ackOut.flush();
+                }, Math.min(ackEvery, header.window), ackDelayMs); // a batch larger than the window could never fill
+
+        for (long expectedFrame = 0; expectedFrame < totalFrames; expectedFrame++) {
+            WireProtocol.Frame frame = WireProtocol.readFrame(in);
+            System.out.println("Received Frame " + frame.frameNo + " with error type " + frame.errorType);
+
+            validators.execute(() -> checkFrame(frame.frameNo, frame.errorType, frame.schemes));
+
+            // Acknowledge according to the sender's mode
+            acks.received(frame.frameNo);
+            progress(expectedFrame + 1);
+        }
+        acks.close();
     }
 
 }
@@ -130,4 +242,4 @@ public class Receiver {
 javac Assignments\Assignment1\*.java
 javac Assignments\Assignment1\Sender.java Assignments\Assignment1\Receiver.java
 java Assignments.Assignment1.Receiver 5000
- */
\ No newline at end of file
+ */
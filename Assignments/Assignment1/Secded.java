@@ -0,0 +1,159 @@
+package Assignments.Assignment1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extended Hamming (SECDED) code over the frame bits of a {@link FrameGeometry}.
+ * <p>
+ * r Hamming check bits and an overall parity bit follow the frame data, and the frame
+ * is padded like the checksum variant. Each data byte is given a block of 8 consecutive
+ * columns c..c+7 (c a multiple of 8) that contains no power of two, so bit b of the
+ * byte has column c | b. Hamming bit j has column 2^j and every bit also feeds the
+ * overall parity. Because of this layout the syndrome of a byte v is
+ * (parity(v) ? c : 0) ^ LOW[v], where LOW is a single 256-entry table. That keeps
+ * decoding table-driven at one lookup per byte, even for jumbo frames.
+ * The column of a single-bit error maps back to its position arithmetically.
+ * <p>
+ * For a 60-byte frame r is 10, so 11 check bits sit at bits 480..490 of the 512-bit
+ * frame; a 9000-byte payload needs r = 17.
+ * <p>
+ * A zero syndrome is a clean frame. Odd parity means a single-bit error, which is
+ * corrected in place. Even parity with a non-zero syndrome means a double error: it is
+ * detected but cannot be corrected. Three or more errors may be miscorrected.
+ */
+public final class Secded {
+    // decode() results
+    public static final int CLEAN = 0;
+    public static final int CORRECTED = 1;
+    public static final int UNCORRECTABLE = 2;
+
+    private static final int[] LOW = new int[256];
+    private static final Map<FrameGeometry, Secded> BY_GEOMETRY = new ConcurrentHashMap<>();
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            int s = 0;
+            for (int b = 0; b < 8; b++) {
+                if ((v & (0x80 >>> b)) != 0) {
+                    s ^= b;
+                }
+            }
+            LOW[v] = s;
+        }
+    }
+
+    private final FrameGeometry geometry;
+    private final int[] base;    // column block of each data byte
+    private final int hamming;   // r
+    private final int checkBits; // r + 1
+    private final int encodedBits;
+
+    private Secded(FrameGeometry geometry) {
+        this.geometry = geometry;
+        this.base = new int[geometry.frameBytes];
+        int block = 3; // blocks 0, 1, 2 hold the columns 1, 2, 4, 8 and 16
+        for (int k = 0; k < base.length; k++, block++) {
+            while (Integer.bitCount(block) == 1) {
+                block++;
+            }
+            base[k] = block * 8;
+        }
+        this.hamming = 32 - Integer.numberOfLeadingZeros(base[base.length - 1] + 7);
+        this.checkBits = hamming + 1;
+        this.encodedBits = geometry.encodedBits(checkBits);
+    }
+
+    public static Secded of(FrameGeometry geometry) {
+        return BY_GEOMETRY.computeIfAbsent(geometry, Secded::new);
+    }
+
+    public int checkBits() {
+        return checkBits;
+    }
+
+    // Bits covered by the code: the frame plus the check bits
+    public int codeBits() {
+        return geometry.frameBits + checkBits;
+    }
+
+    // Length of an encoded frame
+    public int encodedBits() {
+        return encodedBits;
+    }
+
+    // Hamming syndrome of the frame data, with the data's parity in bit 31
+    private int dataSyndrome(byte[] data) {
+        int s = 0, parity = 0;
+        for (int k = 0; k < base.length; k++) {
+            int v = data[k] & 0xFF;
+            int odd = Integer.bitCount(v) & 1;
+            s ^= (base[k] & -odd) ^ LOW[v];
+            parity ^= odd;
+        }
+        return s | (parity << 31);
+    }
+
+    // The check bits for the frame data, in frame order: Hamming bits, then overall parity
+    public long checkBits(byte[] data) {
+        int s = dataSyndrome(data);
+        int h = s & Integer.MAX_VALUE;
+        int parity = ((s >>> 31) ^ Integer.bitCount(h)) & 1;
+        return ((long) h << 1) | parity;
+    }
+
+    // Appends the check bits to the frame and pads it
+    public BitFrame encode(BitFrame frame) {
+        if (frame.length() != geometry.frameBits) {
+            throw new IllegalArgumentException("Frame must be exactly " + geometry.frameBits + " bits");
+        }
+        BitFrame out = frame.copy(encodedBits);
+        out.setBits(geometry.frameBits, checkBits, checkBits(frame.bytes()));
+        return out;
+    }
+
+    /**
+     * Checks a received frame and corrects a single-bit error in place.
+     * Returns {@link #CLEAN}, {@link #CORRECTED} or {@link #UNCORRECTABLE}.
+     */
+    public int decode(BitFrame frame) {
+        if (frame.length() < codeBits()) {
+            throw new IllegalArgumentException("Frame too short for SECDED: " + frame.length() + " bits");
+        }
+        long check = frame.getBits(geometry.frameBits, checkBits);
+        int s = dataSyndrome(frame.bytes()) ^ (int) (check >>> 1);
+        int parity = ((s >>> 31) ^ Long.bitCount(check)) & 1;
+        s &= Integer.MAX_VALUE;
+        if (s == 0 && parity == 0) {
+            return CLEAN;
+        }
+        if (parity == 0) {
+            return UNCORRECTABLE; // even number of errors
+        }
+        int pos = locate(s);
+        if (pos < 0) {
+            return UNCORRECTABLE; // odd weight, but no single bit has this syndrome
+        }
+        frame.flip(pos);
+        return CORRECTED;
+    }
+
+    // Frame bit whose column is s (0 = the overall parity bit), or -1
+    private int locate(int s) {
+        if (s == 0) {
+            return codeBits() - 1;
+        }
+        if (Integer.bitCount(s) == 1) {
+            int j = Integer.numberOfTrailingZeros(s);
+            return j < hamming ? geometry.frameBits + hamming - 1 - j : -1;
+        }
+        int block = s >>> 3;
+        if (block < 3 || Integer.bitCount(block) == 1) {
+            return -1;
+        }
+        // Blocks below this one that were skipped: 0, 1, 2 and the powers of two from 4 up
+        int skipped = 3 + Math.max(0, 31 - Integer.numberOfLeadingZeros(block) - 1);
+        int k = block - skipped;
+        return k < base.length ? k * 8 + (s & 7) : -1;
+    }
+}
@@ -0,0 +1,472 @@
+package Assignments.Assignment1;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Receiver for many concurrent senders on a single selector thread.
+ * <p>
+ * Every connection is a {@link Session} holding its own read buffer, parse state
+ * (text or binary protocol, detected from the first byte as {@link Receiver} does),
+ * pending ACK bytes and {@link DetectionResults}. The selector thread only parses
+ * and acknowledges; validation runs on a small worker pool, and when the pool's
+ * queue is full the selector thread validates the frame itself, which slows every
+ * sender down a little instead of blocking.
+ * <p>
+ * ACKs follow the {@link AckScheduler} policy (one per frame in stop-and-wait mode,
+ * otherwise cumulative every K frames or after T ms), with the delay timers driven by
+ * the select timeout instead of a timer thread. When a session has been read and all
+ * its frames validated, its results are folded into the totals across sessions and
+ * both are printed.
+ */
+public class SelectorReceiver {
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final int ackEvery;
+    private final long ackDelayNanos;
+    private final int maxSessions; // 0 = serve forever
+    private final File csvDir;     // null = no per-session CSV
+    private final ThreadPoolExecutor validators;
+    private final Selector selector;
+    private final List<Session> sessions = new ArrayList<>(); // selector thread only
+    private final Totals totals = new Totals();
+    private final AtomicInteger published = new AtomicInteger();
+    private int nextSessionId;
+
+    public SelectorReceiver(int ackEvery, long ackDelayMs, int threads, int maxSessions, File csvDir)
+            throws IOException {
+        this.ackEvery = ackEvery;
+        this.ackDelayNanos = TimeUnit.MILLISECONDS.toNanos(ackDelayMs);
+        this.maxSessions = maxSessions;
+        this.csvDir = csvDir;
+        this.selector = Selector.open();
+        this.validators = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 64),
+                r -> {
+                    Thread t = new Thread(r, "frame-validator");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Detection counters summed over finished sessions, per scheme name
+    private static final class Totals {
+        private final Map<String, long[][]> byScheme = new LinkedHashMap<>(); // [0]=frames, [1]=detected, by error type
+        private int sessions;
+        private long frames;
+
+        synchronized void add(DetectionResults results) {
+            String[] schemes = results.schemes();
+            for (int s = 0; s < schemes.length; s++) {
+                long[][] counts = byScheme.computeIfAbsent(schemes[s].toLowerCase(Locale.ROOT),
+                        k -> new long[2][DetectionResults.ERROR_TYPES]);
+                for (int e = 0; e < DetectionResults.ERROR_TYPES; e++) {
+                    counts[0][e] += results.total(e);
+                    counts[1][e] += results.detections(e, s);
+                }
+            }
+            sessions++;
+            frames += results.recordedFrames();
+        }
+
+        synchronized void print() {
+            String[] errorTypeNames = {"None", "Single", "Two", "Odd", "Burst"};
+            System.out.println("\n" + "=".repeat(80));
+            System.out.println("           DETECTION SUMMARY OVER " + sessions + " SESSIONS (" + frames + " frames)");
+            System.out.println("=".repeat(80));
+            System.out.printf("%-12s", "Error Type");
+            for (String scheme : byScheme.keySet()) {
+                System.out.printf(" %-10s", Utils.isChecksum(scheme) ? "Checksum" : scheme.toUpperCase());
+            }
+            System.out.println();
+            System.out.println("-".repeat(80));
+            for (int e = 0; e < DetectionResults.ERROR_TYPES; e++) {
+                System.out.printf("%-12s", errorTypeNames[e]);
+                for (long[][] counts : byScheme.values()) {
+                    String rate = counts[0][e] == 0 ? "-"
+                            : String.format("%.1f%%", 100.0 * counts[1][e] / counts[0][e]);
+                    System.out.printf(" %-10s", rate);
+                }
+                System.out.println();
+            }
+            System.out.println("=".repeat(80));
+        }
+    }
+
+    // Per-connection state; touched by the selector thread except where noted
+    private final class Session {
+        final int id;
+        final SocketChannel channel;
+        final SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        ByteBuffer out = ByteBuffer.allocate(256);
+
+        Boolean binary;        // null until the first byte arrives
+        boolean started;       // handshake or header parsed
+        long totalFrames;
+        int window;
+        long received;
+        boolean doneReading;
+
+        // Text protocol: lines of the frame being read
+        int line;
+        int frameNo;
+        int errorType;
+        String[] schemeData;
+
+        // Cumulative ACK state
+        int unacked;
+        int lastFrame = -1;
+        long ackDeadline = Long.MAX_VALUE;
+
+        // Shared with the validation workers
+        DetectionResults results;
+        FrameEncoder checker;
+        final AtomicInteger pending = new AtomicInteger(1); // 1 until reading finishes, plus queued frames
+
+        Session(int id, SocketChannel channel) throws IOException {
+            this.id = id;
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        void start(long frames, int window, String[] schemes, FrameGeometry geometry) {
+            this.totalFrames = frames;
+            this.window = window;
+            this.started = true;
+            this.checker = new FrameEncoder(schemes, geometry);
+            this.results = new DetectionResults(schemes);
+            this.schemeData = new String[schemes.length];
+            if (csvDir != null) {
+                File csv = new File(csvDir, "detected_frames_" + id + ".csv");
+                try {
+                    results.streamCsv(new BufferedWriter(new FileWriter(csv)));
+                } catch (IOException e) {
+                    System.err.println("Session " + id + ": could not open " + csv + ": " + e.getMessage());
+                }
+            }
+            System.out.println("Session " + id + " (" + channel.socket().getRemoteSocketAddress() + "): expecting "
+                    + frames + " frames" + (binary ? " (binary protocol)" : "")
+                    + (window > 0 ? " with window " + window : "") + " using " + String.join(", ", schemes)
+                    + (geometry != FrameGeometry.DEFAULT ? ", " + geometry : ""));
+            if (frames == 0) {
+                finishReading(this);
+            }
+        }
+    }
+
+    public void serve(int port) throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), 256);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Selector receiver listening on port " + port);
+
+            while (maxSessions == 0 || published.get() < maxSessions) {
+                selector.select(selectTimeoutMs());
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(server);
+                        continue;
+                    }
+                    Session session = (Session) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            flushOut(session);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(session);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Session " + session.id + ": " + e.getMessage());
+                        close(session);
+                    }
+                }
+                fireAckTimers();
+            }
+        } finally {
+            validators.shutdown();
+            selector.close();
+        }
+    }
+
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            sessions.add(new Session(nextSessionId++, channel));
+        }
+    }
+
+    // Time until the earliest delayed ACK is due; 0 blocks until something happens
+    private long selectTimeoutMs() {
+        long next = Long.MAX_VALUE;
+        for (Session s : sessions) {
+            next = Math.min(next, s.ackDeadline);
+        }
+        if (next == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime()));
+    }
+
+    private void fireAckTimers() {
+        long now = System.nanoTime();
+        for (Session s : new ArrayList<>(sessions)) {
+            if (s.ackDeadline <= now) {
+                try {
+                    sendCumulativeAck(s);
+                } catch (IOException e) {
+                    System.err.println("Session " + s.id + ": " + e.getMessage());
+                    close(s);
+                }
+            }
+        }
+    }
+
+    private void read(Session s) throws IOException {
+        if (!s.in.hasRemaining()) {
+            // A single frame is larger than the buffer
+            s.in = ByteBuffer.allocate(s.in.capacity() * 2).put(s.in.flip());
+        }
+        int n = s.channel.read(s.in);
+        if (n < 0) {
+            if (!s.doneReading) {
+                System.err.println("Session " + s.id + " closed after " + s.received + " of " + s.totalFrames
+                        + " frames");
+            }
+            close(s);
+            return;
+        }
+
+        s.in.flip();
+        if (s.binary == null && s.in.hasRemaining()) {
+            s.binary = s.in.get(s.in.position()) == (byte) (WireProtocol.MAGIC >>> 24);
+        }
+        if (Boolean.TRUE.equals(s.binary)) {
+            parseBinary(s);
+        } else if (s.binary != null) {
+            parseText(s);
+        }
+        s.in.compact();
+    }
+
+    private void parseBinary(Session s) throws IOException {
+        if (!s.started) {
+            if (WireProtocol.headerLength(s.in) < 0) {
+                return;
+            }
+            WireProtocol.Header header = WireProtocol.readHeader(s.in);
+            s.start(header.frameCount, header.window, header.schemes, header.geometry);
+        }
+        while (!s.doneReading && WireProtocol.frameLength(s.in) >= 0) {
+            WireProtocol.Frame frame = WireProtocol.readFrame(s.in);
+            submit(s, () -> s.results.record(frame.frameNo, frame.errorType, s.checker.detect(frame.schemes)));
+            frameReceived(s, frame.frameNo);
+        }
+    }
+
+    private void parseText(Session s) throws IOException {
+        String line;
+        while (!s.doneReading && (line = readLine(s.in)) != null) {
+            if (!s.started) {
+                // count[:window[:schemes[:payloadBytes]]], as sent by Sender.sendText
+                String[] handshake = line.split(":");
+                s.start(Long.parseLong(handshake[0]),
+                        handshake.length > 1 ? Integer.parseInt(handshake[1]) : 0,
+                        handshake.length > 2 ? handshake[2].split(",") : FrameBuilder.DEFAULT_SCHEMES,
+                        handshake.length > 3 ? FrameGeometry.of(Integer.parseInt(handshake[3]))
+                                : FrameGeometry.DEFAULT);
+                continue;
+            }
+            int schemes = s.schemeData.length;
+            if (s.line == 0) {
+                s.frameNo = Integer.parseInt(line.split(":")[1]);
+            } else if (s.line == 1) {
+                s.errorType = Integer.parseInt(line.split(":")[1]);
+            } else if (s.line < 2 + schemes) {
+                s.schemeData[s.line - 2] = line.split(":", 2)[1];
+            }
+            if (++s.line < 3 + schemes) {
+                continue;
+            }
+            // END_FRAME: hand the frame to a worker, which also parses the bit strings
+            String[] data = s.schemeData.clone();
+            int frameNo = s.frameNo, errorType = s.errorType;
+            submit(s, () -> {
+                BitFrame[] frames = new BitFrame[data.length];
+                for (int i = 0; i < data.length; i++) {
+                    frames[i] = BitFrame.fromBitString(data[i]);
+                }
+                s.results.record(frameNo, errorType, s.checker.detect(frames));
+            });
+            s.line = 0;
+            frameReceived(s, frameNo);
+        }
+    }
+
+    // Next '\n'-terminated line in buf, or null when none is complete
+    private static String readLine(ByteBuffer buf) {
+        for (int i = buf.position(); i < buf.limit(); i++) {
+            if (buf.get(i) == '\n') {
+                int end = (i > buf.position() && buf.get(i - 1) == '\r') ? i - 1 : i;
+                byte[] bytes = new byte[end - buf.position()];
+                buf.get(bytes);
+                buf.position(i + 1);
+                return new String(bytes, StandardCharsets.US_ASCII);
+            }
+        }
+        return null;
+    }
+
+    private void submit(Session s, Runnable validation) {
+        s.pending.incrementAndGet();
+        validators.execute(() -> {
+            try {
+                validation.run();
+            } catch (RuntimeException e) {
+                System.err.println("Session " + s.id + ": validation failed: " + e.getMessage());
+            } finally {
+                if (s.pending.decrementAndGet() == 0) {
+                    publish(s);
+                }
+            }
+        });
+    }
+
+    private void frameReceived(Session s, int frameNo) throws IOException {
+        s.received++;
+        if (s.window == 0) {
+            // Stop-and-wait sender: acknowledge every frame
+            queueAck(s, s.binary ? new byte[]{WireProtocol.ACK} : "ACK\n".getBytes(StandardCharsets.US_ASCII));
+        } else {
+            s.lastFrame = Math.max(s.lastFrame, frameNo);
+            // a batch larger than the sender's window could never fill
+            if (++s.unacked >= Math.min(ackEvery, s.window)) {
+                sendCumulativeAck(s);
+            } else if (s.ackDeadline == Long.MAX_VALUE) {
+                s.ackDeadline = System.nanoTime() + ackDelayNanos;
+            }
+        }
+        if (s.received == s.totalFrames) {
+            sendCumulativeAck(s);
+            finishReading(s);
+        }
+    }
+
+    private void sendCumulativeAck(Session s) throws IOException {
+        s.ackDeadline = Long.MAX_VALUE;
+        if (s.unacked == 0) {
+            return;
+        }
+        s.unacked = 0;
+        if (s.binary) {
+            queueAck(s, ByteBuffer.allocate(5).put(WireProtocol.ACK).putInt(s.lastFrame).array());
+        } else {
+            queueAck(s, ("ACK:" + s.lastFrame + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void queueAck(Session s, byte[] ack) throws IOException {
+        if (s.out.remaining() < ack.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(s.out.capacity() * 2, s.out.position() + ack.length));
+            s.out = grown.put(s.out.flip());
+        }
+        s.out.put(ack);
+        flushOut(s);
+    }
+
+    // Writes pending ACK bytes; waits for OP_WRITE when the socket buffer is full
+    private void flushOut(Session s) throws IOException {
+        s.out.flip();
+        s.channel.write(s.out);
+        boolean blocked = s.out.hasRemaining();
+        s.out.compact();
+        int ops = SelectionKey.OP_READ | (blocked ? SelectionKey.OP_WRITE : 0);
+        if (s.key.interestOps() != ops) {
+            s.key.interestOps(ops);
+        }
+    }
+
+    private void finishReading(Session s) {
+        s.doneReading = true;
+        if (s.pending.decrementAndGet() == 0) {
+            publish(s);
+        }
+    }
+
+    private void close(Session s) {
+        sessions.remove(s);
+        s.key.cancel();
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+        }
+        if (!s.doneReading) {
+            // Publish whatever arrived before the connection dropped
+            finishReading(s);
+        }
+    }
+
+    // Called once per session, by whichever thread finishes its last piece of work
+    private void publish(Session s) {
+        if (s.results != null) {
+            try {
+                s.results.close();
+            } catch (IOException e) {
+                System.err.println("Session " + s.id + ": " + e.getMessage());
+            }
+            totals.add(s.results);
+            long corrected = s.checker.corrections();
+            System.out.println("Session " + s.id + " complete: " + s.results.recordedFrames() + " frames validated"
+                    + (corrected > 0 ? ", " + corrected + " corrected by SECDED" : ""));
+            totals.print();
+        }
+        published.incrementAndGet();
+        selector.wakeup();
+    }
+
+    // Main
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java Assignments.Assignment1.SelectorReceiver <port> [ackEvery] [ackDelayMs]"
+                    + " [validatorThreads] [sessions] [csvDir]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int ackEvery = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        long ackDelayMs = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int sessions = args.length > 4 ? Integer.parseInt(args[4]) : 0; // exit after this many; 0 = never
+        File csvDir = args.length > 5 ? new File(args[5]) : null;
+
+        new SelectorReceiver(ackEvery, ackDelayMs, threads, sessions, csvDir).serve(port);
+    }
+}
+
+/*
+java Assignments.Assignment1.SelectorReceiver 5000
+java Assignments.Assignment1.SelectorReceiver 5000 16 5 4 100 Assignments/Assignment1
+ */
@@ -2,36 +2,47 @@ package Assignments.Assignment1;
 
 import java.io.*;
 import java.net.*;
-import java.nio.file.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
-import static Assignments.Assignment1.FrameBuilder.createFrames;
+import static Assignments.Assignment1.FrameBuilder.streamFrames;
 
 public class Sender {
     private static final String[] ERROR_TYPES = {"none", "single", "two", "odd", "burst"};
-    private static final String[] SCHEMES = { "checksum","crc8", "crc10", "crc16", "crc32"};
-    private String inputFilePath, senderMaxAddress, recieveMacAddress;
-    private static final String LEN_BIN = "00101110" + "00101110"; // 46 decimal
-    protected List<List<String>> frameList; // frame 1 -> 5 frames for different schems with error injected in 4/5 out of them
+    private String inputFilePath;
+    private byte[] senderMaxAddress, recieveMacAddress;
+    protected FrameBuilder.FrameStream frameStream; // frame 1 -> 5 frames for different schems with error injected in 4/5 out of them
 
     public Sender(String inputFilePath, String senderMAC, String recieverMAC) throws IOException {
+        this(inputFilePath, senderMAC, recieverMAC, FrameBuilder.DEFAULT_SCHEMES);
+    }
+
+    // schemes: "checksum", "secded" or CrcCatalog names (e.g. crc32c, crc64)
+    public Sender(String inputFilePath, String senderMAC, String recieverMAC, String[] schemes) throws IOException {
+        this(inputFilePath, senderMAC, recieverMAC, schemes, FrameGeometry.DEFAULT);
+    }
+
+    public Sender(String inputFilePath, String senderMAC, String recieverMAC, String[] schemes,
+                  FrameGeometry geometry) throws IOException {
         this.inputFilePath = inputFilePath;
-        this.senderMaxAddress = macToBinary(senderMAC);
-        this.recieveMacAddress = macToBinary(recieverMAC);
-        frameList = createFrames(inputFilePath, senderMaxAddress, recieveMacAddress, LEN_BIN);
+        this.senderMaxAddress = macToBytes(senderMAC);
+        this.recieveMacAddress = macToBytes(recieverMAC);
+        frameStream = streamFrames(inputFilePath, senderMaxAddress, recieveMacAddress, schemes, geometry);
     }
 
-    private static String macToBinary(String mac) {
-        return Arrays.stream(mac.split("-"))
-                .map(h -> String.format("%8s", Integer.toBinaryString(Integer.parseInt(h, 16)))
-                        .replace(' ', '0'))
-                .reduce("", String::concat);
+    private static byte[] macToBytes(String mac) {
+        String[] parts = mac.split("-");
+        byte[] out = new byte[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            out[i] = (byte) Integer.parseInt(parts[i], 16);
+        }
+        return out;
     }
 
 
     public static void main(String[] args) throws IOException {
         if (args.length < 5) {
-            System.err.println("Usage: java Assignments.Assignment1.Sender <host> <port> <inputfile> <senderMac> <recieverMac>");
+            System.err.println("Usage: java Assignments.Assignment1.Sender <host> <port> <inputfile> <senderMac> <recieverMac> [text|binary] [window] [seed] [schemes] [payloadBytes]");
             return;
         }
 
@@ -40,48 +51,152 @@ public class Sender {
         String inputFilePath = args[2];
         String senderMAC = args[3];
         String recieverMAC = args[4];
-        Sender sender = new Sender(inputFilePath, senderMAC, recieverMAC);
-        try (Socket socket = new Socket(host, port);
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-
-            System.out.println("Connected to receiver at " + host + ":" + port);
+        boolean binary = args.length > 5 && "binary".equalsIgnoreCase(args[5]);
+        int window = args.length > 6 ? Integer.parseInt(args[6]) : 0; // 0 = wait for an ACK after every frame
+        if (args.length > 7) {
+            // Replays the exact same error pattern for the same seed
+            ErrorInjector.setSeed(Long.parseLong(args[7]));
+        }
+        // Comma-separated scheme names, e.g. checksum,crc32,crc32c,crc64
+        String[] schemes = args.length > 8 ? args[8].split(",") : FrameBuilder.DEFAULT_SCHEMES;
+        // Payload bytes per frame, up to 9000 for jumbo frames
+        FrameGeometry geometry = args.length > 9 ? FrameGeometry.of(Integer.parseInt(args[9])) : FrameGeometry.DEFAULT;
+        Sender sender = new Sender(inputFilePath, senderMAC, recieverMAC, schemes, geometry);
+        try (FrameBuilder.FrameStream frames = sender.frameStream;
+             Socket socket = new Socket(host, port)) {
+
+            System.out.println("Connected to receiver at " + host + ":" + port
+                    + (binary ? " (binary protocol)" : "")
+                    + (window > 0 ? " with window " + window : "")
+                    + (geometry != FrameGeometry.DEFAULT ? ", " + geometry : ""));
+
+            if (binary) {
+                sendBinary(frames, socket, window);
+            } else {
+                sendText(frames, socket, window);
+            }
+        }
+    }
 
-            // Send total number of frames first
-            out.println(sender.frameList.size());
+    private static void sendText(FrameBuilder.FrameStream frames, Socket socket, int window) throws IOException {
+        // Pipelined mode flushes once per window instead of once per line
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), window == 0);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+        // Send total number of frames first, plus the window when pipelining, the
+        // scheme names when they differ from the default set and the payload size
+        // when it differs from 46 bytes
+        String[] schemes = frames.schemes();
+        FrameGeometry geometry = frames.geometry();
+        if (geometry != FrameGeometry.DEFAULT) {
+            out.println(frames.frameCount() + ":" + window + ":" + String.join(",", schemes) + ":"
+                    + geometry.payloadBytes);
+        } else if (!Arrays.equals(schemes, FrameBuilder.DEFAULT_SCHEMES)) {
+            out.println(frames.frameCount() + ":" + window + ":" + String.join(",", schemes));
+        } else {
+            out.println(window == 0 ? String.valueOf(frames.frameCount()) : frames.frameCount() + ":" + window);
+        }
 
-            // Send each frame with all 5 schemes and corresponding error injection
-            for (int i = 0; i < sender.frameList.size(); i++) {
-                List<String> currentFrameSchemes = sender.frameList.get(i);
-                int errorNo = i%5;
-                String errorType = ERROR_TYPES[errorNo]; // 0=none, 1=single, 2=two, 3=odd, 4=burst
+        // Send each frame with all 5 schemes and corresponding error injection
+        int sent = 0, acked = 0;
+        for (int i = 0; frames.hasNext(); i++) {
+            List<BitFrame> currentFrameSchemes = frames.next();
+            int errorNo = i%5;
+            String errorType = ERROR_TYPES[errorNo]; // 0=none, 1=single, 2=two, 3=odd, 4=burst
 
-                // Send frame number
-                out.println("FRAME:" + i);
+            // Send frame number
+            out.println("FRAME:" + i);
 
-                // Send error type
-                out.println("ERROR_TYPE:" + errorNo);
+            // Send error type
+            out.println("ERROR_TYPE:" + errorNo);
 
-                // Send all 5 schemes for this frame
-                out.println("CHECKSUM:" + currentFrameSchemes.get(0));
-                out.println("CRC8:" + currentFrameSchemes.get(1));
-                out.println("CRC10:" + currentFrameSchemes.get(2));
-                out.println("CRC16:" + currentFrameSchemes.get(3));
-                out.println("CRC32:" + currentFrameSchemes.get(4));
+            // Send every scheme variant for this frame
+            for (int s = 0; s < schemes.length; s++) {
+                out.println(schemes[s].toUpperCase() + ":" + currentFrameSchemes.get(s).toBitString());
+            }
 
-                // Send end of frame marker
-                out.println("END_FRAME");
+            // Send end of frame marker
+            out.println("END_FRAME");
+            sent++;
 
+            if (window == 0) {
                 // Wait for acknowledgment from receiver
                 String ack = in.readLine();
                 if ("ACK".equals(ack)) {
+                    acked = sent;
                     System.out.println("Frame " + i + " sent successfully with error type " + errorType);
                 } else {
                     System.out.println("Error sending frame " + i + ": " + ack);
                 }
+            } else if (sent - acked >= window) {
+                // Window full: wait for the receiver to slide it
+                out.flush();
+                acked = recvCumulativeAck(parseTextAck(in.readLine()), acked);
+            }
+        }
+
+        out.flush();
+        while (acked < sent) {
+            acked = recvCumulativeAck(parseTextAck(in.readLine()), acked);
+        }
+    }
+
+    private static void sendBinary(FrameBuilder.FrameStream frames, Socket socket, int window) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        WireProtocol.writeHeader(out, frames.frameCount(), window, frames.schemes(), frames.geometry());
+
+        ByteBuffer buf = null;
+        int sent = 0, acked = 0;
+        for (int i = 0; frames.hasNext(); i++) {
+            int errorNo = i%5;
+            buf = WireProtocol.encodeFrame(buf, i, errorNo, frames.next());
+            out.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            sent++;
+
+            if (window == 0) {
+                out.flush();
+
+                // Wait for acknowledgment from receiver
+                int ack = in.read();
+                if (ack == WireProtocol.ACK) {
+                    acked = sent;
+                    System.out.println("Frame " + i + " sent successfully with error type " + ERROR_TYPES[errorNo]);
+                } else {
+                    System.out.println("Error sending frame " + i + ": " + ack);
+                }
+            } else if (sent - acked >= window) {
+                // Window full: wait for the receiver to slide it
+                out.flush();
+                acked = recvCumulativeAck(WireProtocol.readCumulativeAck(in), acked);
             }
         }
+
+        out.flush();
+        while (acked < sent) {
+            acked = recvCumulativeAck(WireProtocol.readCumulativeAck(in), acked);
+        }
+    }
+
+    private static int parseTextAck(String ack) throws IOException {
+        if (ack == null || !ack.startsWith("ACK:")) {
+            throw new IOException("Expected cumulative ACK, got " + ack);
+        }
+        return Integer.parseInt(ack.substring(4));
+    }
+
+    // Reports every frame covered by a cumulative ACK and returns the new count of acknowledged frames
+    private static int recvCumulativeAck(int ackNum, int acked) {
+        for (int f = acked; f <= ackNum; f++) {
+            System.out.println("Frame " + f + " sent successfully with error type " + ERROR_TYPES[f % 5]);
+        }
+        return Math.max(acked, ackNum + 1);
     }
 }
 
 // java Assignments.Assignment1.Sender localhost 5000 Assignments/Assignment1/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7
+// java Assignments.Assignment1.Sender localhost 5000 Assignments/Assignment1/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7 binary
+// java Assignments.Assignment1.Sender localhost 5000 Assignments/Assignment1/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7 text 64
+// java Assignments.Assignment1.Sender localhost 5000 Assignments/Assignment1/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7 binary 64 42 checksum,crc32,crc32c,crc64
+// java Assignments.Assignment1.Sender localhost 5000 Assignments/Assignment1/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7 binary 16 42 checksum,crc32,secded 9000
@@ -1,113 +1,91 @@
 package Assignments.Assignment1;
 
-import static Assignments.Assignment1.Receiver.detectedFrames;
-
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
 import java.util.Map;
 
 public class Utils {
 
     public static String getChecksum(String frame) {
-        final int FRAME_BITS = 480;
-        final int TARGET_BITS = 512;
-        int sum = 0;
-
-        // Sum as 16-bit words (30 words = 60 bytes)
-        for (int i = 0; i < FRAME_BITS; i += 16) {
-            int word = Integer.parseInt(frame.substring(i, i + 16), 2);
-            sum += word;
-            // Wrap around carry (ones' complement addition)
-            if ((sum & 0x10000) != 0) {
-                sum = (sum & 0xFFFF) + 1;
-            }
-        }
-
-        // One's complement of the sum
-        int checksum = ~sum & 0xFFFF;
+        return getChecksum(BitFrame.fromBitString(frame)).toBitString();
+    }
 
-        // Binary string
-        String chk = String.format("%16s", Integer.toBinaryString(checksum))
-                .replace(' ', '0');
+    // Appends the 16-bit one's complement checksum and pads the frame (to 512 bits for 60-byte frames)
+    public static BitFrame getChecksum(BitFrame frame) {
+        FrameGeometry geometry = FrameGeometry.ofFrameBits(frame.length());
+        BitFrame out = frame.copy(geometry.paddedBits);
+        out.setBits(geometry.frameBits, 16, checksum(frame.bytes(), geometry));
+        return out;
+    }
 
-        // Append checksum and pad to 512 bits
-        StringBuilder out = new StringBuilder(frame).append(chk);
-        int padding = TARGET_BITS - out.length();
-        for (int i = 0; i < padding; i++) {
-            out.append('0');
-        }
-        return out.toString();
+    private static int checksum(byte[] data, FrameGeometry geometry) {
+        // One's complement checksum of the frame's 16-bit words (30 words for 60 bytes)
+        return InternetChecksum.compute(data, 0, geometry.frameBytes);
     }
 
     public static String getCrc(String frameBits, int width) {
-        if (frameBits.length() != 480) {
-            throw new IllegalArgumentException("Frame must be exactly 480 bits");
+        return getCrc(BitFrame.fromBitString(frameBits), width).toBitString();
+    }
+
+    public static BitFrame getCrc(BitFrame frame, int width) {
+        return getCrc(frame, CrcCatalog.lookup("crc" + width));
+    }
+
+    // Appends the CRC of the frame and pads it (to 512 bits for 60-byte frames, or to whole bytes past that)
+    public static BitFrame getCrc(BitFrame frame, CrcCatalog.Spec spec) {
+        FrameGeometry geometry = FrameGeometry.ofFrameBits(frame.length());
+        BitFrame out = frame.copy(geometry.crcFrameBits(spec));
+        out.setBits(geometry.frameBits, spec.width, crc(frame.bytes(), spec, geometry));
+        return out;
+    }
+
+    // CRC value over the frame bytes
+    static long crc(byte[] data, CrcCatalog.Spec spec, FrameGeometry geometry) {
+        return spec.compute(data, 0, geometry.frameBytes);
+    }
+
+    // Encodes a frame with the named scheme: "checksum", "secded" or any CrcCatalog name
+    public static BitFrame encode(BitFrame frame, String scheme) {
+        if (isChecksum(scheme)) {
+            return getChecksum(frame);
         }
-        // Convert the 480-bit string into a 60-byte array
-        byte[] data = new byte[60];
-        for (int i = 0; i < 60; i++) {
-            int off = i * 8;
-            data[i] = (byte) Integer.parseInt(frameBits.substring(off, off + 8), 2);
+        if (isSecded(scheme)) {
+            return Secded.of(FrameGeometry.ofFrameBits(frame.length())).encode(frame);
         }
+        return getCrc(frame, CrcCatalog.lookup(scheme));
+    }
 
-        // Select CRC parameters by width
-        int poly, init, xorout;
-        boolean refin, refout;
-        switch (width) {
-            case 8:
-                poly = 0x07;
-                init = 0x00;
-                xorout = 0x00;
-                refin = false;
-                refout = false;
-                break;
-            case 10:
-                poly = 0x233;
-                init = 0x000;
-                xorout = 0x000;
-                refin = false;
-                refout = false;
-                break;
-            case 16:
-                poly = 0x1021;
-                init = 0xFFFF;
-                xorout = 0x0000;
-                refin = false;
-                refout = false;
-                break;
-            case 32:
-                poly = 0x04C11DB7;
-                init = 0xFFFFFFFF;
-                xorout = 0xFFFFFFFF;
-                refin = true;
-                refout = true;
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported CRC width: " + width);
+    // Validates a 60-byte frame encoded with the named scheme; 1 when an error is detected
+    public static Integer validate(BitFrame frame, String scheme) {
+        return validate(frame, scheme, FrameGeometry.DEFAULT);
+    }
+
+    public static Integer validate(BitFrame frame, String scheme, FrameGeometry geometry) {
+        if (isChecksum(scheme)) {
+            return validateCheckSum(frame, geometry);
         }
+        if (isSecded(scheme)) {
+            return validateSecded(frame, geometry);
+        }
+        return validateCrc(frame, CrcCatalog.lookup(scheme), geometry);
+    }
 
-        // Compute the CRC value
-        int crcValue = computeCrc(data, width, poly, init, refin, refout, xorout);
+    static boolean isChecksum(String scheme) {
+        return "checksum".equalsIgnoreCase(scheme);
+    }
 
-        // Convert CRC to zero-padded binary string of length 'width'
-        long mask = (width == 32) ? 0xFFFFFFFFL : ((1L << width) - 1);
-        String crcBits = String.format("%" + width + "s",
-                        Long.toBinaryString(((long) crcValue) & mask))
-                .replace(' ', '0');
-
-        // Append CRC bits and pad zeros to reach 512 bits
-        StringBuilder sb = new StringBuilder(frameBits).append(crcBits);
-        int padding = 512 - sb.length();
-        for (int i = 0; i < padding; i++) {
-            sb.append('0');
-        }
-        return sb.toString();
+    static boolean isSecded(String scheme) {
+        return "secded".equalsIgnoreCase(scheme);
     }
 
+    // True for "checksum", "secded" and CrcCatalog names
+    static boolean isKnownScheme(String scheme) {
+        return isChecksum(scheme) || isSecded(scheme) || CrcCatalog.contains(scheme);
+    }
 
+    // Table-driven CRC; the tables are built once per (width, poly, refin) by CrcEngine
     public static int computeCrc(
             byte[] data,
             int width,
@@ -116,70 +94,46 @@ public class Utils {
             boolean refin,
             boolean refout,
             int xorout) {
-        int topBit = 1 << (width - 1);
-        int mask = (width == 32) ? 0xFFFFFFFF : ((1 << width) - 1);
-        int crc = init & mask;
-
-        for (byte b : data) {
-            int curr = b & 0xFF;
-            if (refin) {
-                curr = Integer.reverse(curr) >>> 24;
-            }
-            crc ^= (curr << (width - 8)) & mask;
-            for (int i = 0; i < 8; i++) {
-                if ((crc & topBit) != 0) {
-                    crc = ((crc << 1) ^ poly) & mask;
-                } else {
-                    crc = (crc << 1) & mask;
-                }
-            }
-        }
-
-        if (refout) {
-            crc = Integer.reverse(crc) >>> (32 - width);
-        }
-        return (crc ^ xorout) & mask;
+        long mask = (width == 32) ? 0xFFFFFFFFL : ((1L << width) - 1);
+        CrcEngine engine = CrcEngine.of(width, poly & mask, refin);
+        return (int) engine.compute(data, 0, data.length, init & mask, refout, xorout & mask);
     }
 
-    public static Integer validateCrc(String frame, int width) {
-        try {
-            // Extract the original 480-bit data (first 480 bits)
-            String originalData = frame.substring(0, 480);
-
-            // Extract the received CRC (next 'width' bits after the 480-bit data)
-            String receivedCrc = frame.substring(480, 480 + width);
+    public static Integer validateCrc(BitFrame frame, int width) {
+        return validateCrc(frame, CrcCatalog.lookup("crc" + width));
+    }
 
-            // Recompute the CRC for the original data
-            String recomputedFrame = getCrc(originalData, width);
-            String recomputedCrc = recomputedFrame.substring(480, 480 + width);
+    public static Integer validateCrc(BitFrame frame, CrcCatalog.Spec spec) {
+        return validateCrc(frame, spec, FrameGeometry.DEFAULT);
+    }
 
-            // Compare received CRC with recomputed CRC
-            if (receivedCrc.equals(recomputedCrc)) {
+    public static Integer validateCrc(BitFrame frame, CrcCatalog.Spec spec, FrameGeometry geometry) {
+        try {
+            // Recompute the CRC over the frame data and compare it with the received CRC field
+            long computed = crc(frame.bytes(), spec, geometry);
+            if (computed == frame.getBits(geometry.frameBits, spec.width)) {
                 return 0; // No error detected
             } else {
                 return 1; // Error detected
             }
 
         } catch (Exception e) {
-            System.err.println("Error validating CRC" + width + ": " + e.getMessage());
+            System.err.println("Error validating " + spec.name + ": " + e.getMessage());
             return 0; // Assume no error if validation fails
         }
     }
 
-    public static Integer validateCheckSum(String frame) {
-        try {
-            // Extract the original 480-bit data (first 480 bits)
-            String originalData = frame.substring(0, 480);
-
-            // Extract the received checksum (next 16 bits after the 480-bit data)
-            String receivedChecksum = frame.substring(480, 496);
+    public static Integer validateCheckSum(BitFrame frame) {
+        return validateCheckSum(frame, FrameGeometry.DEFAULT);
+    }
 
-            // Recompute the checksum for the original data
-            String recomputedFrame = getChecksum(originalData);
-            String recomputedChecksum = recomputedFrame.substring(480, 496);
+    public static Integer validateCheckSum(BitFrame frame, FrameGeometry geometry) {
+        try {
+            // Received checksum sits right after the frame data
+            long receivedChecksum = frame.getBits(geometry.frameBits, 16);
 
-            // Compare received checksum with recomputed checksum
-            if (receivedChecksum.equals(recomputedChecksum)) {
+            // Recompute the checksum for the original data and compare
+            if (receivedChecksum == checksum(frame.bytes(), geometry)) {
                 return 0; // No error detected
             } else {
                 return 1; // Error detected
@@ -191,98 +145,96 @@ public class Utils {
         }
     }
 
-    // 1) Write detectedFrames to CSV
-    protected static void exportDetectedFramesCsv(String csvPath) throws IOException {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(csvPath))) {
-            // Header
-            pw.println("frame,errorType,checksum,crc8,crc10,crc16,crc32");
-            // Rows
-            for (int i = 0; i < detectedFrames.size(); i++) {
-                List<Integer> row = detectedFrames.get(i);
-                if (row.size() < 6)
-                    continue;
-                pw.printf("%d,%d,%d,%d,%d,%d,%d%n",
-                        i,
-                        row.get(0),
-                        row.get(1),
-                        row.get(2),
-                        row.get(3),
-                        row.get(4),
-                        row.get(5));
-            }
+    // Single-bit errors are corrected in place; 1 when any error was seen, corrected or not
+    public static Integer validateSecded(BitFrame frame) {
+        return validateSecded(frame, FrameGeometry.DEFAULT);
+    }
+
+    public static Integer validateSecded(BitFrame frame, FrameGeometry geometry) {
+        return Secded.of(geometry).decode(frame) == Secded.CLEAN ? 0 : 1;
+    }
+
+    // 1) Write detection results to CSV
+    protected static void exportDetectedFramesCsv(DetectionResults results, String csvPath) throws IOException {
+        try (FileWriter out = new FileWriter(csvPath)) {
+            results.writeCsv(out);
         }
     }
 
+    // Column title of a scheme in the printed tables
+    private static String displayName(String scheme) {
+        return isChecksum(scheme) ? "Checksum" : scheme.toUpperCase();
+    }
+
+    // Column width of a scheme in the printed tables
+    private static int displayWidth(String[] schemeNames, int scheme) {
+        return Math.max(scheme == 0 ? 10 : 8, displayName(schemeNames[scheme]).length());
+    }
+
+    // Error type names for display
+    private static final String[] ERROR_TYPE_NAMES = {"None", "Single", "Two", "Odd", "Burst"};
+
+    protected static void prettyDisplay(DetectionResults results) {
+        String[] schemeNames = results.schemes();
+        int schemes = schemeNames.length;
 
-    protected static void prettyDisplay() {
         // Print results beautifully
         System.out.println("\n" + "=".repeat(80));
         System.out.println("                        ERROR DETECTION RESULTS");
         System.out.println("=".repeat(80));
 
         // Print header
-        System.out.printf("%-8s %-12s %-10s %-8s %-8s %-8s %-8s%n",
-                "Frame", "Error Type", "Checksum", "CRC8", "CRC10", "CRC16", "CRC32");
+        System.out.printf("%-8s %-12s", "Frame", "Error Type");
+        for (int scheme = 0; scheme < schemes; scheme++) {
+            System.out.printf(" %-" + displayWidth(schemeNames, scheme) + "s", displayName(schemeNames[scheme]));
+        }
+        System.out.println();
         System.out.println("-".repeat(80));
 
-        // Error type names for display
-        String[] errorTypeNames = {"None", "Single", "Two", "Odd", "Burst"};
-
-        for (int i = 0; i < detectedFrames.size(); i++) {
-            List<Integer> frameResult = detectedFrames.get(i);
-
-            if (frameResult.size() >= 6) {
-                int errorType = frameResult.get(0);
-                String errorTypeName = (errorType >= 0 && errorType < errorTypeNames.length) ? errorTypeNames[errorType]
-                        : "Unknown";
-
-                System.out.printf("%-8d %-12s %-10s %-8s %-8s %-8s %-8s%n",
-                        i,
-                        errorTypeName,
-                        (frameResult.get(1) == 1) ? "DETECTED" : "NO ERROR",
-                        frameResult.get(2) == 1 ? "DETECTED" : "NO ERROR",
-                        frameResult.get(3) == 1 ? "DETECTED" : "NO ERROR",
-                        frameResult.get(4) == 1 ? "DETECTED" : "NO ERROR",
-                        frameResult.get(5) == 1 ? "DETECTED" : "NO ERROR");
+        for (int i = 0; i < results.size(); i++) {
+            if (results.isRecorded(i)) {
+                int errorType = results.errorType(i);
+                String errorTypeName = (errorType >= 0 && errorType < ERROR_TYPE_NAMES.length)
+                        ? ERROR_TYPE_NAMES[errorType] : "Unknown";
+
+                System.out.printf("%-8d %-12s", i, errorTypeName);
+                for (int scheme = 0; scheme < schemes; scheme++) {
+                    System.out.printf(" %-" + displayWidth(schemeNames, scheme) + "s",
+                            results.detected(i, scheme) ? "DETECTED" : "NO ERROR");
+                }
+                System.out.println();
             }
         }
 
         System.out.println("-".repeat(80));
 
+        printDetectionSummary(results);
+    }
+
+    // Detection rates per error type and scheme; reads the live counters, so it is cheap at any time
+    protected static void printDetectionSummary(DetectionResults results) {
+        String[] schemeNames = results.schemes();
+        int schemes = schemeNames.length;
+
         // Print summary statistics
         System.out.println("\n                           DETECTION SUMMARY");
         System.out.println("=".repeat(80));
 
-        // Count detection rates for each scheme
-        int[] totalByErrorType = new int[5]; // Count of each error type
-        int[][] detectionCount = new int[5][5]; // [errorType][scheme] detection count
-
-        for (int i = 0; i < detectedFrames.size(); i++) {
-            List<Integer> frameResult = detectedFrames.get(i);
-            if (frameResult.size() >= 6) {
-                int errorType = frameResult.get(0);
-                if (errorType >= 0 && errorType < 5) {
-                    totalByErrorType[errorType]++;
-                    for (int scheme = 0; scheme < 5; scheme++) {
-                        if (frameResult.get(scheme + 1) == 1) {
-                            detectionCount[errorType][scheme]++;
-                        }
-                    }
-                }
-            }
-        }
-
         // Print detection rates
-        System.out.printf("%-12s %-10s %-8s %-8s %-8s %-8s%n",
-                "Error Type", "Checksum", "CRC8", "CRC10", "CRC16", "CRC32");
+        System.out.printf("%-12s", "Error Type");
+        for (int scheme = 0; scheme < schemes; scheme++) {
+            System.out.printf(" %-" + displayWidth(schemeNames, scheme) + "s", displayName(schemeNames[scheme]));
+        }
+        System.out.println();
         System.out.println("-".repeat(80));
 
-        for (int errorType = 0; errorType < 5; errorType++) {
-            if (totalByErrorType[errorType] > 0) {
-                System.out.printf("%-12s ", errorTypeNames[errorType]);
-                for (int scheme = 0; scheme < 5; scheme++) {
-                    double rate = (double) detectionCount[errorType][scheme] / totalByErrorType[errorType] * 100;
-                    System.out.printf("%-8s ", String.format("%.0f%%", rate));
+        for (int errorType = 0; errorType < DetectionResults.ERROR_TYPES; errorType++) {
+            if (results.total(errorType) > 0) {
+                System.out.printf("%-12s ", ERROR_TYPE_NAMES[errorType]);
+                for (int scheme = 0; scheme < schemes; scheme++) {
+                    double rate = results.rate(errorType, scheme) * 100;
+                    int width = Math.max(8, displayName(schemeNames[scheme]).length());
+                    System.out.printf("%-" + width + "s ", String.format("%.0f%%", rate));
                 }
                 System.out.println();
             }
@@ -0,0 +1,241 @@
+package Assignments.Assignment1;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Length-prefixed binary framing for the Assignment1 transfer.
+ * <p>
+ * Stream header: int magic, long frame count, int window (0 = stop-and-wait),
+ * unsigned short payload bytes per frame ({@link FrameGeometry}), byte scheme count
+ * and each scheme name as modified UTF-8 ({@code writeUTF}).
+ * Each frame: int frame number, byte error type, byte scheme bitmap (bit s set
+ * when scheme s is present), then for every present scheme an unsigned short
+ * body length in bytes followed by the packed frame body.
+ * With window 0 the receiver answers each frame with the single byte {@link #ACK};
+ * otherwise it sends {@link #ACK} followed by an int, acknowledging every frame up
+ * to and including that number.
+ * <p>
+ * The magic's first byte is not an ASCII digit, so a receiver can tell a binary
+ * sender from a text one by peeking at the first byte.
+ */
+public final class WireProtocol {
+    static final int MAGIC = 0xB1F7A002; // low byte is the protocol version
+    static final byte ACK = 0x06;
+    static final int MAX_SCHEMES = 8;
+
+    private WireProtocol() {
+    }
+
+    // A frame as it comes off the wire; schemes[s] is null when scheme s was not sent
+    public static class Frame {
+        public final int frameNo;
+        public final int errorType;
+        public final BitFrame[] schemes;
+
+        Frame(int frameNo, int errorType, BitFrame[] schemes) {
+            this.frameNo = frameNo;
+            this.errorType = errorType;
+            this.schemes = schemes;
+        }
+    }
+
+    public static class Header {
+        public final long frameCount;
+        public final int window;
+        public final FrameGeometry geometry;
+        public final String[] schemes;
+
+        Header(long frameCount, int window, FrameGeometry geometry, String[] schemes) {
+            this.frameCount = frameCount;
+            this.window = window;
+            this.geometry = geometry;
+            this.schemes = schemes;
+        }
+    }
+
+    public static void writeHeader(DataOutputStream out, long frameCount, int window, String[] schemes,
+                                   FrameGeometry geometry) throws IOException {
+        if (schemes.length > MAX_SCHEMES) {
+            throw new IllegalArgumentException("At most " + MAX_SCHEMES + " schemes per frame");
+        }
+        out.writeInt(MAGIC);
+        out.writeLong(frameCount);
+        out.writeInt(window);
+        out.writeShort(geometry.payloadBytes);
+        out.writeByte(schemes.length);
+        for (String scheme : schemes) {
+            out.writeUTF(scheme);
+        }
+    }
+
+    /**
+     * Encodes one frame with all its scheme variants into buf, growing it when needed.
+     * The returned buffer is flipped and ready to be written.
+     */
+    public static ByteBuffer encodeFrame(ByteBuffer buf, int frameNo, int errorType, List<BitFrame> schemes) {
+        if (schemes.size() > MAX_SCHEMES) {
+            throw new IllegalArgumentException("At most " + MAX_SCHEMES + " schemes per frame");
+        }
+        int size = 4 + 1 + 1;
+        for (BitFrame scheme : schemes) {
+            size += 2 + scheme.bytes().length;
+        }
+        if (buf == null || buf.capacity() < size) {
+            buf = ByteBuffer.allocate(Math.max(size, buf == null ? 0 : buf.capacity() * 2));
+        }
+        buf.clear();
+        buf.putInt(frameNo);
+        buf.put((byte) errorType);
+        buf.put((byte) ((1 << schemes.size()) - 1));
+        for (BitFrame scheme : schemes) {
+            byte[] body = scheme.bytes();
+            if (body.length > 0xFFFF) {
+                throw new IllegalArgumentException("Frame body of " + body.length + " bytes is too long");
+            }
+            buf.putShort((short) body.length);
+            buf.put(body);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    // Peeks at the first byte: true when the peer speaks the binary protocol
+    public static boolean isBinary(BufferedInputStream in) throws IOException {
+        in.mark(1);
+        int first = in.read();
+        in.reset();
+        return first == (MAGIC >>> 24);
+    }
+
+    public static Header readHeader(DataInput in) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("Bad protocol magic 0x" + Integer.toHexString(magic));
+        }
+        long frameCount = in.readLong();
+        int window = in.readInt();
+        FrameGeometry geometry = geometry(in.readUnsignedShort());
+        String[] schemes = new String[in.readUnsignedByte()];
+        if (schemes.length > MAX_SCHEMES) {
+            throw new IOException("Too many schemes: " + schemes.length);
+        }
+        for (int s = 0; s < schemes.length; s++) {
+            schemes[s] = in.readUTF();
+        }
+        return new Header(frameCount, window, geometry, schemes);
+    }
+
+    // Reads a cumulative ACK and returns the last frame number it covers
+    public static int readCumulativeAck(DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type != ACK) {
+            throw new IOException("Expected ACK, got 0x" + Integer.toHexString(type & 0xFF));
+        }
+        return in.readInt();
+    }
+
+    public static Frame readFrame(DataInput in) throws IOException {
+        int frameNo = in.readInt();
+        int errorType = in.readByte();
+        int bitmap = in.readByte() & 0xFF;
+        BitFrame[] schemes = new BitFrame[MAX_SCHEMES];
+        for (int s = 0; s < MAX_SCHEMES; s++) {
+            if ((bitmap & (1 << s)) != 0) {
+                byte[] body = new byte[in.readUnsignedShort()];
+                in.readFully(body);
+                schemes[s] = new BitFrame(body, body.length * 8);
+            }
+        }
+        return new Frame(frameNo, errorType, schemes);
+    }
+
+    // Non-blocking variants: the lengths return -1 until enough bytes are buffered, from buf's position on
+
+    // Bytes of the stream header at the start of buf, or -1 when incomplete
+    public static int headerLength(ByteBuffer buf) {
+        int p = buf.position();
+        int fixed = 4 + 8 + 4 + 2 + 1;
+        if (buf.limit() - p < fixed) {
+            return -1;
+        }
+        int count = buf.get(p + fixed - 1) & 0xFF;
+        int len = fixed;
+        for (int s = 0; s < count; s++) {
+            if (buf.limit() - p < len + 2) {
+                return -1;
+            }
+            len += 2 + (buf.getShort(p + len) & 0xFFFF);
+        }
+        return buf.limit() - p < len ? -1 : len;
+    }
+
+    // Bytes of the frame at the start of buf, or -1 when incomplete
+    public static int frameLength(ByteBuffer buf) {
+        int p = buf.position();
+        int len = 4 + 1 + 1;
+        if (buf.limit() - p < len) {
+            return -1;
+        }
+        int bitmap = buf.get(p + 5) & 0xFF;
+        for (int s = 0; s < MAX_SCHEMES; s++) {
+            if ((bitmap & (1 << s)) != 0) {
+                if (buf.limit() - p < len + 2) {
+                    return -1;
+                }
+                len += 2 + (buf.getShort(p + len) & 0xFFFF);
+            }
+        }
+        return buf.limit() - p < len ? -1 : len;
+    }
+
+    // Reads a header that headerLength() reported complete. Scheme names must be ASCII.
+    public static Header readHeader(ByteBuffer buf) throws IOException {
+        int magic = buf.getInt();
+        if (magic != MAGIC) {
+            throw new IOException("Bad protocol magic 0x" + Integer.toHexString(magic));
+        }
+        long frameCount = buf.getLong();
+        int window = buf.getInt();
+        FrameGeometry geometry = geometry(buf.getShort() & 0xFFFF);
+        String[] schemes = new String[buf.get() & 0xFF];
+        if (schemes.length > MAX_SCHEMES) {
+            throw new IOException("Too many schemes: " + schemes.length);
+        }
+        for (int s = 0; s < schemes.length; s++) {
+            byte[] name = new byte[buf.getShort() & 0xFFFF];
+            buf.get(name);
+            schemes[s] = new String(name, StandardCharsets.US_ASCII);
+        }
+        return new Header(frameCount, window, geometry, schemes);
+    }
+
+    private static FrameGeometry geometry(int payloadBytes) throws IOException {
+        try {
+            return FrameGeometry.of(payloadBytes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    // Reads a frame that frameLength() reported complete
+    public static Frame readFrame(ByteBuffer buf) {
+        int frameNo = buf.getInt();
+        int errorType = buf.get();
+        int bitmap = buf.get() & 0xFF;
+        BitFrame[] schemes = new BitFrame[MAX_SCHEMES];
+        for (int s = 0; s < MAX_SCHEMES; s++) {
+            if ((bitmap & (1 << s)) != 0) {
+                byte[] body = new byte[buf.getShort() & 0xFFFF];
+                buf.get(body);
+                schemes[s] = new BitFrame(body, body.length * 8);
+            }
+        }
+        return new Frame(frameNo, errorType, schemes);
+    }
+}
@@ -0,0 +1,49 @@
+package Assignments.Assignment1.vector;
+
+import Assignments.Assignment1.InternetChecksum;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteOrder;
+
+/**
+ * Vector API variant of {@link InternetChecksum#sumScalar}. Loaded reflectively by
+ * {@link InternetChecksum}, so the rest of the tree builds and runs without the
+ * incubator module.
+ * <p>
+ * Each int lane holds two big-endian 16-bit words; both halves are added into int
+ * lane accumulators (read as unsigned), which are spilled into a long before they
+ * can overflow.
+ */
+public final class VectorChecksum {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // Each lane gains at most 2 * 0xFFFF per step, so 2^15 steps fit in an unsigned int
+    private static final int SPILL_EVERY = 1 << 15;
+
+    private VectorChecksum() {
+    }
+
+    public static long sum(byte[] data, int off, int len) {
+        int step = SPECIES.vectorByteSize();
+        int end = off + len;
+        int i = off;
+        long sum = 0;
+        while (i + step <= end) {
+            IntVector acc = IntVector.zero(SPECIES);
+            for (int n = 0; n < SPILL_EVERY && i + step <= end; n++, i += step) {
+                IntVector v = IntVector.fromByteArray(SPECIES, data, i, ByteOrder.BIG_ENDIAN);
+                acc = acc.add(v.and(0xFFFF)).add(v.lanewise(VectorOperators.LSHR, 16));
+            }
+            // Reduce the 16-bit halves separately so the cross-lane int sums cannot overflow
+            sum += acc.and(0xFFFF).reduceLanesToLong(VectorOperators.ADD)
+                    + (acc.lanewise(VectorOperators.LSHR, 16).reduceLanesToLong(VectorOperators.ADD) << 16);
+        }
+        return sum + InternetChecksum.sumScalar(data, i, end - i);
+    }
+}
+
+/*
+javac --add-modules jdk.incubator.vector Assignments/Assignment1/*.java Assignments/Assignment1/vector/*.java
+java --add-modules jdk.incubator.vector -Dchecksum.impl=auto Assignments.Assignment1.Receiver 5000
+ */
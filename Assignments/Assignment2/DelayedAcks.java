@@ -0,0 +1,137 @@
+package Assignments.Assignment2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.PushbackInputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The receiver's ACK policy, as in TCP's delayed ACK (RFC 1122, RFC 5681).
+ * <p>
+ * In-order frames are acknowledged every {@code every} frames, or once the oldest of them
+ * has waited {@code delay}, whichever comes first. Out-of-order and duplicate frames are
+ * answered before the receiver next waits for input, because the sender is waiting on
+ * that answer to repair a loss. Frames that are already buffered are still read first,
+ * up to {@code every} of them, so their answers share the write.
+ * ACKs are cumulative, so a delayed ACK is replaced by the next one rather than queued.
+ * Control messages collect in a writer that does not flush by itself, and one flush
+ * (one write on the socket) carries them all.
+ * <p>
+ * The delay is timed by waiting for the next input byte under a socket timeout. That
+ * wait only happens when the reader has nothing buffered, and it reads through the
+ * PushbackInputStream under the reader, so a timeout can never cut a frame line in half.
+ */
+public class DelayedAcks {
+    private final Socket socket;
+    private final PushbackInputStream raw;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final int every;
+    private final long delayNanos;
+
+    private String pending; // latest cumulative ACK not yet written
+    private int pendingFrames;
+    private long pendingSince;
+    private boolean unflushed;
+    private int urgentReads; // reads since a message that must not wait was written, or -1
+    private long messages;
+    private long flushes;
+
+    // raw must be the stream under in, and out must not flush automatically
+    public DelayedAcks(Socket socket, PushbackInputStream raw, BufferedReader in, PrintWriter out,
+                       int every, long delayMillis) {
+        this.socket = socket;
+        this.raw = raw;
+        this.in = in;
+        this.out = out;
+        this.every = Math.max(1, every);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        this.urgentReads = -1;
+    }
+
+    // ACK of an in-order frame: it may wait for more frames
+    public void ack(String message) {
+        if (pending == null) {
+            pendingSince = System.nanoTime();
+        }
+        pending = message;
+        if (++pendingFrames >= every) {
+            flush();
+        }
+    }
+
+    // ACK that must not wait; it is newer than any delayed one, which it replaces
+    public void ackNow(String message) {
+        pending = null;
+        pendingFrames = 0;
+        write(message);
+        if (urgentReads < 0) {
+            urgentReads = 0;
+        }
+    }
+
+    /**
+     * Called before each read. Flushes a delayed ACK whose time is up, or when the input
+     * stays idle until then; returns at once while more frames are already waiting.
+     */
+    public void awaitInput() throws IOException {
+        if (urgentReads >= 0) {
+            if (!in.ready() || ++urgentReads >= every) {
+                flush();
+            }
+            return;
+        }
+        if (pending == null) {
+            return;
+        }
+        long wait = delayNanos - (System.nanoTime() - pendingSince);
+        if (wait > 0) {
+            if (in.ready()) {
+                return;
+            }
+            socket.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait + 999_999)));
+            try {
+                int b = raw.read();
+                if (b >= 0) {
+                    raw.unread(b);
+                    return;
+                }
+            } catch (SocketTimeoutException e) {
+                // no frame within the delay
+            } finally {
+                socket.setSoTimeout(0);
+            }
+        }
+        flush();
+    }
+
+    // Writes the delayed ACK, if any, and pushes everything written onto the socket
+    public void flush() {
+        if (pending != null) {
+            write(pending);
+            pending = null;
+            pendingFrames = 0;
+        }
+        if (unflushed) {
+            out.flush();
+            unflushed = false;
+            flushes++;
+        }
+        urgentReads = -1;
+    }
+
+    private void write(String message) {
+        out.println(message);
+        unflushed = true;
+        messages++;
+    }
+
+    @Override
+    public String toString() {
+        return messages + " ACK messages in " + flushes + " writes (every " + every + " frames, delay "
+                + TimeUnit.NANOSECONDS.toMillis(delayNanos) + " ms)";
+    }
+}
@@ -1,85 +1,69 @@
 package Assignments.Assignment2;
 
 
-import java.io.BufferedReader;
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.FrameSource;
+
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import static Assignments.Assignment1.Utils.getChecksum;
 
 public class FrameBuilder {
 
+    /**
+     * Lazily yields the checksum-encoded bit string of each 60-byte frame of the input,
+     * so a sender holds only its window of frames however long the stream is.
+     */
+    public static class FrameStream implements Iterator<String>, Closeable {
+        private final FrameSource source;
+        private final long maxFrames; // 0 = the whole input
+        private long produced;
+
+        FrameStream(FrameSource source, long maxFrames) {
+            this.source = source;
+            this.maxFrames = maxFrames;
+        }
 
-    public static class Frame {
-        private final String bits;    // 480-bits string of '0'/'1'
+        // Frames this stream yields in total
+        public long frameCount() {
+            long available = source.frameCount();
+            return maxFrames > 0 ? Math.min(maxFrames, available) : available;
+        }
 
-        public Frame(String bits) {
-            this.bits = bits;
+        @Override
+        public boolean hasNext() {
+            return source.hasNext() && (maxFrames <= 0 || produced < maxFrames);
         }
 
-        public String getBits() {
-            return bits;
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            produced++;
+            return getChecksum(source.next()).toBitString();
         }
 
         @Override
-        public String toString() {
-            return bits;
+        public void close() throws IOException {
+            source.close();
         }
     }
 
-    static List<Frame> frames;
-    static List<String> correctedFrames;
-
-    // create frames of 60 Bytes
-    public static List<String> createFrames(
+    // Frames of 60 Bytes, read from the input as they are requested; maxFrames <= 0 streams the whole input
+    public static FrameStream streamFrames(
             String inputFilePath,
             String senderMacAddress,
             String receiveMacAddress,
-            String LEN
+            String LEN,
+            long maxFrames
     ) throws IOException {
         final int PAYLOAD_CHARS = 46;
-        final int FRAME_BITS = 60 * 8;  // 480 bits
-        frames = new ArrayList<>();
-
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(inputFilePath))) {
-            char[] buffer = new char[PAYLOAD_CHARS];
-            int readCount;
-            while ((readCount = reader.read(buffer)) != -1) {
-                // Convert up to 46 chars to bits
-                StringBuilder payloadBits = new StringBuilder(PAYLOAD_CHARS * 8);
-                for (int i = 0; i < readCount; i++) {
-                    String bin = String.format("%8s", Integer.toBinaryString(buffer[i] & 0xFF))
-                            .replace(' ', '0');
-                    payloadBits.append(bin);
-                }
-                // Pad final chunk with zeros if needed
-                int missing = PAYLOAD_CHARS - readCount;
-                for (int i = 0; i < missing; i++) {
-                    payloadBits.append("00000000");
-                }
-
-                // Build full 480-bit frame string
-                String frameBits = senderMacAddress
-                        + receiveMacAddress
-                        + LEN
-                        + payloadBits.toString();
-
-
-                frames.add(new Frame(frameBits));
-            }
-        }
-        calculateCorrectionMethods(frames);
-        return correctedFrames;
-    }
-
-    private static void calculateCorrectionMethods(List<Frame> frames) {
-        correctedFrames = new ArrayList<>();
-        for (int i = 0; i < frames.size(); i++) {
-            String frame = frames.get(i).getBits();
-            correctedFrames.add(getChecksum(frame));
-        }
+        byte[] header = BitFrame.fromBitString(senderMacAddress + receiveMacAddress + LEN).bytes();
+        return new FrameStream(new FrameSource(Paths.get(inputFilePath), header, PAYLOAD_CHARS), maxFrames);
     }
 }
@@ -4,6 +4,7 @@ import java.io.*;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static Assignments.Assignment1.Utils.exportToCSV;
 import static Assignments.Assignment2.Sender.*;
@@ -12,17 +13,24 @@ public class GoBackARQ {
 //    final int TIMEOUT_MS = 5000; // timeout after 5000ms
 //    final int TOTAL_FRAMES = 5;
 
-    // store time taken for each frame
+    // store time taken for each frame (the first FRAME_TIMES_KEPT frames)
     private final Map<Integer, Long> frameTimes = new LinkedHashMap<>();
-    // store the first send time for each frame index
+    // store the first send time (System.nanoTime) for each acknowledged frame, for the CSV export
     private final Map<Integer, Long> sendTimeMap = new HashMap<>();
+    private final RttEstimator rtt = new RttEstimator(TIMEOUT_MS);
+    // send times and transmission counts of the frames in flight
+    private final SendWindow window = new SendWindow(windowSize);
+    // the frames in flight, by sequence number mod the window capacity
+    private final String[] inFlight = new String[window.capacity()];
+    private long framesAcked = 0;
 
     public GoBackARQ() throws IOException {
         run();
     }
 
     protected void run() throws IOException {
-        try (Socket socket = new Socket(host, port);
+        try (FrameBuilder.FrameStream frames = openFrames();
+             Socket socket = new Socket(host, port);
              PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
 
@@ -30,43 +38,57 @@ public class GoBackARQ {
 
             // tell receiver : GoBackN
             out.println("2");
-            out.println(TOTAL_FRAMES);
+            out.println(handshake(frames));
 
-            int start = 0;     // first unacknowledged frame
-            int i = 0;         // next frame to send
+            int i = 0;         // next frame to send; window.base() is the first unacknowledged one
             long totalTime = 0; // total transfer time across all frames
             Random random = new Random();
 
             startTimer(socket);
 
-            while (start < TOTAL_FRAMES) {
-                // send frames within window
-                while (i < start + N && i < TOTAL_FRAMES) {
+            while (true) {
+                // send frames within window, reading new ones from the input as the window opens
+                while (i - window.base() < windowSize) {
+                    if (i == window.next()) {
+                        if (!frames.hasNext()) break;
+                        inFlight[i & (inFlight.length - 1)] = frames.next();
+                    }
                     sendFrame(i, random, out);
                     i++;
                 }
+                if (window.isEmpty()) break; // input exhausted and every frame acknowledged
 
                 try {
-                    int ackNum = recvAck(in, start, totalTime); // returns cumulative ACK number
-                    if (ackNum >= 0) {
-                        // record the time taken for all frames up to ackNum that are not yet recorded
-                        for (int f = start; f <= ackNum && f < TOTAL_FRAMES; f++) {
-                            if (!frameTimes.containsKey(f)) {
-                                Long sentAt = sendTimeMap.get(f);
-                                long timeTaken = System.currentTimeMillis() - sentAt;
+                    int ackNum = recvAck(in, window.base(), totalTime); // returns cumulative ACK number
+                    if (ackNum - window.base() >= 0) {
+                        // record the time taken for the frames up to ackNum; each is visited once as the window passes it
+                        long now = System.nanoTime();
+                        int last = ackNum - window.next() < 0 ? ackNum : window.next() - 1;
+                        for (int f = window.base(); f - last <= 0; f++) {
+                            long timeTaken = TimeUnit.NANOSECONDS.toMillis(now - window.firstSent(f));
+                            if (framesAcked++ < FRAME_TIMES_KEPT) {
                                 frameTimes.put(f, timeTaken);
-                                totalTime += timeTaken;
-                                System.out.println("Sender : Time taken for frame " + f + ": " + timeTaken + " ms");
+                                sendTimeMap.put(f, window.firstSent(f));
                             }
+                            totalTime += timeTaken;
+                            System.out.println("Sender : Time taken for frame " + f + ": " + timeTaken + " ms");
+                        }
+                        // One RTT sample per ACK: the receiver acknowledges n only when n arrives in
+                        // order, so frame ackNum triggered it. Karn's rule: only if it was sent once
+                        if (last == ackNum && !window.retransmitted(ackNum)) {
+                            rtt.sample(now - window.lastSent(ackNum));
+                        } else {
+                            rtt.resetBackoff();
                         }
 
                         // slide window
-                        start = ackNum + 1;
-                        System.out.println("Sender : Increasing window start to " + start);
+                        window.ackThrough(ackNum);
+                        System.out.println("Sender : Increasing window start to " + window.base());
                         startTimer(socket);
                     }
                 } catch (SocketTimeoutException e) {
-                    i = handleTimeout(start);
+                    i = handleTimeout(window.base());
+                    startTimer(socket);
                 }
             }
 
@@ -78,39 +100,42 @@ public class GoBackARQ {
     }
 
     private void sendFrame(int frameNumber, Random random, PrintWriter out) {
-        String frame = frameList.get(frameNumber);
+        String frame = inFlight[frameNumber & (inFlight.length - 1)];
         if (random.nextInt(100) < PROB) {
             System.out.println("Sender : Successfully Sent frame " + frameNumber);
-            out.println(frameNumber + ":" + frame);
+            out.println(SeqNum.wire(frameNumber) + ":" + frame);
         } else {
             System.out.println("Sender : Frame " + frameNumber + " lost in transmission... (simulating loss)");
         }
-        // record first send time only
-        sendTimeMap.putIfAbsent(frameNumber, System.currentTimeMillis());
+        window.sent(frameNumber, System.nanoTime());
     }
 
     private void startTimer(Socket socket) throws IOException {
-        socket.setSoTimeout(TIMEOUT_MS);
-        System.out.println("\nSender : Timer Started/Restarted ...\n");
+        socket.setSoTimeout(rtt.timeoutMillis());
+        System.out.println("\nSender : Timer Started/Restarted (" + rtt + ") ...\n");
     }
 
     // Handles retransmission
     private int handleTimeout(int start) {
-        System.out.println("Sender : Timeout retransmitting from frame " + start);
+        System.out.println("Sender : Timeout after " + rtt.timeoutMillis() + " ms, retransmitting from frame " + start);
+        rtt.backoff();
         return start; // Reset index to first unacknowledged frame
     }
 
     // Receives an ACK and computes the RTT/time taken for the frame.
     private int recvAck(BufferedReader in, int start, long totalTime) throws IOException {
         String ack = in.readLine();
-        if (ack == null) return -1;
+        if (ack == null) {
+            throw new IOException("Receiver closed the connection with frames unacknowledged from " + start);
+        }
 
         if (ack.startsWith("ACK")) {
-            int ackNum = Integer.parseInt(ack.split(":")[1]); // e.g., "ACK:3"
+            // e.g., "ACK:3"; the wire number wraps, the nearest frame to the window start is meant
+            int ackNum = SeqNum.unwrap(Integer.parseInt(ack.split(":")[1]), start);
             System.out.println("Sender : Received cumulative ACK for frame " + ackNum);
             return ackNum;
         }
-        return -1;
+        return start - 1;
     }
 
     public Map<Integer, Long> getFrameTimes() {
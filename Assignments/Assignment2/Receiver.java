@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
@@ -13,8 +14,14 @@ import java.util.Random;
 
 public class Receiver {
 
-    protected static int totalFrames;
+    protected static int totalFrames; // -1 when the sender streams until its input ends
+    protected static int windowSize;
     protected static List<List<Integer>> detectedFrames; // error_type is_detected for all types
+    protected static final int ACK_EVERY = 2;    // in-order frames per ACK
+    protected static final int ACK_DELAY_MS = 5; // longest an in-order frame waits for its ACK
+
+    protected static int ackEvery = ACK_EVERY;
+    protected static int ackDelayMs = ACK_DELAY_MS;
 
     public Receiver() {
         detectedFrames = new ArrayList<>();
@@ -24,38 +31,52 @@ public class Receiver {
     // Main
     public static void main(String[] args) throws IOException {
         if (args.length < 1) {
-            System.err.println("Usage: java Assignments.Assignment1.Receiver <port>");
+            System.err.println("Usage: java Assignments.Assignment1.Receiver <port> [ackEvery] [ackDelayMs]");
             return;
         }
 
         int port = Integer.parseInt(args[0]);
+        if (args.length > 1) {
+            ackEvery = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            ackDelayMs = Integer.parseInt(args[2]);
+        }
         Receiver receiver = new Receiver();
 
         try (ServerSocket serverSocket = new ServerSocket(port)) {
             System.out.println("Receiver listening on port " + port);
             while (true) {
                 try (Socket clientSocket = serverSocket.accept();
-                     BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                     PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)) {
+                     PushbackInputStream raw = new PushbackInputStream(clientSocket.getInputStream());
+                     BufferedReader in = new BufferedReader(new InputStreamReader(raw));
+                     PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), false)) {
 
                     System.out.println("Receiver : Client connected: " + clientSocket.getInetAddress());
+                    // ACKs are written through acks, which decides when out is flushed
+                    DelayedAcks acks = new DelayedAcks(clientSocket, raw, in, out, ackEvery, ackDelayMs);
 
                     // Read Flow Control Scheme
                     int ch = Integer.parseInt(in.readLine());
-                    totalFrames = Integer.parseInt(in.readLine());
+                    // frame count and sender window, as "count:window"
+                    String[] handshake = in.readLine().split(":");
+                    totalFrames = Integer.parseInt(handshake[0]);
+                    windowSize = Integer.parseInt(handshake[1]);
                     switch (ch) {
                         case 1:
-                            stop_and_wait(in, out);
+                            stop_and_wait(in, acks);
                             break;
                         case 2:
-                            go_back_arq(in, out);
+                            go_back_arq(in, acks);
                             break;
                         case 3:
-                            selective_repeat_arq(in, out);
+                            selective_repeat_arq(in, acks);
                             break;
                         default:
                             break;
                     }
+                    acks.flush();
+                    System.out.println("Receiver : " + acks);
                 } catch (IOException e) {
                     System.err.println("Error handling client connection: " + e.getMessage());
                 }
@@ -65,42 +86,55 @@ public class Receiver {
         }
     }
 
-    private static void stop_and_wait(BufferedReader in, PrintWriter out) throws IOException {
-        List<String> frames = new ArrayList<>();
+    // The sender waits on every ACK here, so none is delayed
+    private static void stop_and_wait(BufferedReader in, DelayedAcks acks) throws IOException {
         Random random = new Random();
-        int i = 0;
+        int expected = 0; // next frame to deliver
 
         while (true) {
+            acks.awaitInput();
             String frame = in.readLine();
             if (frame == null) break; // safety if sender closes connection
-            frames.add(frame);
 
-            System.out.println("Receiver : Received frame " + i);
+            // A repeat of the last frame (its ACK was lost) is ACKed again but not delivered
+            int i = SeqNum.unwrap(Integer.parseInt(frame.split(":")[0]), expected);
+            if (i == expected) {
+                expected++;
+                System.out.println("Receiver : Received frame " + i);
+            } else if (i - expected < 0) {
+                System.out.println("Receiver : Duplicate frame " + i);
+            } else {
+                // The sender only moves on after an ACK, so frames between were skipped: never ACK this
+                System.out.println("Receiver : Out of order frame " + i + ", expected frame " + expected
+                        + " - frames were skipped, not acknowledged");
+                continue;
+            }
 
             // Simulate ACK loss
             int rand = random.nextInt(100);
             if (rand < 95) { // 95% chance of sending ACK
-                out.println("ACK");
-                System.out.println("Receiver : ACK sent for frame " + i);
-                i++;
+                // numbered, so a late ACK of a retransmitted frame is not taken for the next one
+                acks.ackNow("ACK:" + SeqNum.wire(expected - 1));
+                System.out.println("Receiver : ACK sent for frame " + (expected - 1));
             } else {
                 // no ACK sent
-                System.out.println("Receiver : Dropped ACK for frame " + i);
+                System.out.println("Receiver : Dropped ACK for frame " + (expected - 1));
             }
         }
     }
 
 
-    private static void go_back_arq(BufferedReader in, PrintWriter out) throws IOException {
+    private static void go_back_arq(BufferedReader in, DelayedAcks acks) throws IOException {
         Random random = new Random();
         int expectedFrameNo = 0;
 
         while (true) {
+            acks.awaitInput();
             String frame = in.readLine();
 
             if (frame == null) break; // safety if sender closes connection
 
-            int recievedFrameNo = Integer.parseInt(frame.split(":")[0]);
+            int recievedFrameNo = SeqNum.unwrap(Integer.parseInt(frame.split(":")[0]), expectedFrameNo);
 
             frame = frame.split(":")[1];
 
@@ -111,7 +145,7 @@ public class Receiver {
 
                 // Simulate ACK loss
                 if (random.nextInt(100) < 95) { // 95% chance send ACK
-                    sendACK(out, random, expectedFrameNo);  // cumulative ACK
+                    sendACK(acks, random, expectedFrameNo, false);  // cumulative ACK, may be delayed
                     System.out.println("Receiver : Sent ACK " + expectedFrameNo);
                 } else {
                     System.out.println("Receiver : Dropped ACK " + expectedFrameNo);
@@ -120,87 +154,102 @@ public class Receiver {
             } else {
                 // wrong frame → do not do anything
                 System.out.println("Receiver : Out of order frame detected... expected frame " + expectedFrameNo + " receiver frame " + recievedFrameNo);
-                sendACK(out, random, expectedFrameNo - 1); // duplicate ACK
+                sendACK(acks, random, expectedFrameNo - 1, true); // duplicate ACK, at once
                 System.out.println("Receiver : Resent ACK for frame " + (expectedFrameNo - 1));
             }
         }
     }
 
 
-    private static void selective_repeat_arq(BufferedReader in, PrintWriter out) throws IOException {
+    private static void selective_repeat_arq(BufferedReader in, DelayedAcks acks) throws IOException {
         Random random = new Random();
-        boolean[] received = new boolean[totalFrames];
-        String[] buffer = new String[totalFrames];
+        // Only the sender's window can be in flight, so frame f is buffered at f mod capacity
+        int capacity = Integer.highestOneBit(Math.max(1, windowSize - 1)) << 1;
+        int mask = capacity - 1;
+        boolean[] received = new boolean[capacity];
+        String[] buffer = new String[capacity];
 
         int expectedFrame = 0;
-        Integer pendingNak = null;
+        int highestFrame = -1; // highest frame received so far, bounds the SACK bitmap
 
         while (true) {
+            acks.awaitInput();
             String line = in.readLine();
             if (line == null) break;
 
-            int frameNo = Integer.parseInt(line.split(":")[0]);
+            int frameNo = SeqNum.unwrap(Integer.parseInt(line.split(":")[0]), expectedFrame);
             String data = line.split(":")[1];
 
+            if (frameNo - expectedFrame >= capacity) {
+                System.out.println("Receiver : Frame " + frameNo + " is beyond the window, ignored");
+                continue;
+            }
+
             // Duplicate frame handler
-            if (received[frameNo]) {
-                // Already received → re-send last ACK
-                int ackToSend = expectedFrame > 0 ? expectedFrame - 1 : 0;
-                System.out.println("Receiver : Duplicate frame " + frameNo + " detected, re-sending ACK " + ackToSend);
-                sendACK(out, random, ackToSend);  // duplicate ACK here
+            if (frameNo - expectedFrame < 0 || received[frameNo & mask]) {
+                // Already received → the last SACK may have been lost, send the current one again
+                System.out.println("Receiver : Duplicate frame " + frameNo + " detected, re-sending SACK");
+                sendSACK(acks, random, expectedFrame, highestFrame, received, mask, true);
                 continue;  // Skip normal processing
             }
 
             // New Frame Handler
-            received[frameNo] = true;
-            buffer[frameNo] = data;
+            received[frameNo & mask] = true;
+            buffer[frameNo & mask] = data;
+            if (frameNo - highestFrame > 0) {
+                highestFrame = frameNo;
+            }
             System.out.println("Receiver : Frame " + frameNo + " received and buffered");
 
             if (frameNo == expectedFrame) {
                 // Got the expected frame
-                expectedFrame++;
-                // Move forward through any already-buffered frames
-                while (expectedFrame < totalFrames && received[expectedFrame]) {
+                // Deliver it and any already-buffered frames after it, freeing their slots
+                do {
+                    received[expectedFrame & mask] = false;
+                    buffer[expectedFrame & mask] = null;
                     expectedFrame++;
-                }
-
-                // If previously there was a NAK, and it is now filled → send cumulative ACK
-                if (pendingNak != null) {
-                    pendingNak = null;
-                    sendACK(out, random, expectedFrame - 1);
-                    System.out.println("Receiver : Sent cumulative ACK " + (expectedFrame - 1));
-                } else {
-                    // Normal ACK if no NAK pending
-                    sendACK(out, random, expectedFrame - 1);
-                    System.out.println("Receiver : ACK sent for frame " + (expectedFrame - 1));
-                }
-            } else if (frameNo > expectedFrame) {
-                // Out-of-order → issue NAK for expectedFrame
-                if (pendingNak == null) {
-                    pendingNak = expectedFrame;
-                    System.out.println("Receiver : Out of order detected, sending NAK " + expectedFrame);
-                    sendNAK(out, random, expectedFrame);
-                }
-                // Hold ACKs until missing frame arrives
+                } while (received[expectedFrame & mask]);
+            } else {
+                System.out.println("Receiver : Out of order detected, missing frame " + expectedFrame);
             }
+            // Every new frame is answered with the cumulative point and the frames held above it,
+            // so one SACK tells the sender about every hole. A SACK that shows a hole (frames still
+            // held) or fills one (several frames delivered) goes at once; others may wait
+            boolean holes = highestFrame - expectedFrame >= 0 || frameNo != expectedFrame - 1;
+            sendSACK(acks, random, expectedFrame, highestFrame, received, mask, holes);
         }
     }
 
 
-    private static void sendACK(PrintWriter out, Random random, int ackNum) {
+    private static void sendACK(DelayedAcks acks, Random random, int ackNum, boolean now) {
         if (random.nextInt(100) < 95) {
-            out.println("ACK:" + ackNum);
+            String ack = "ACK:" + SeqNum.wire(ackNum);
+            if (now) {
+                acks.ackNow(ack);
+            } else {
+                acks.ack(ack);
+            }
         } else {
             System.out.println("Receiver : Dropped ACK " + ackNum);
         }
     }
 
 
-    private static void sendNAK(PrintWriter out, Random random, int nakNum) {
+    // SACK:cum:bitmap, cum being the last in-order frame; see SackBitmap
+    private static void sendSACK(DelayedAcks acks, Random random, int expectedFrame, int highestFrame,
+                                 boolean[] received, int mask, boolean now) {
+        int ackNum = expectedFrame - 1;
+        String bitmap = SackBitmap.encode(received, mask, expectedFrame, highestFrame);
         if (random.nextInt(100) < 95) {
-            out.println("NAK:" + nakNum);
+            String sack = "SACK:" + SeqNum.wire(ackNum) + ":" + bitmap;
+            if (now) {
+                acks.ackNow(sack);
+            } else {
+                acks.ack(sack);
+            }
+            System.out.println("Receiver : Sent SACK " + ackNum + (bitmap.isEmpty() ? "" : " [" + bitmap + "]"));
         } else {
-            System.out.println("Receiver : Dropped NAK " + nakNum);
+            System.out.println("Receiver : Dropped SACK " + ackNum);
         }
     }
 
@@ -0,0 +1,86 @@
+package Assignments.Assignment2;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retransmission timeout that follows the measured round-trip time (Jacobson/Karels,
+ * as in RFC 6298).
+ * <p>
+ * Each sample updates RTTVAR += (|SRTT - R| - RTTVAR) / 4 and then SRTT += (R - SRTT) / 8;
+ * the first sample sets SRTT = R and RTTVAR = R / 2. RTO = SRTT + 4 * RTTVAR, clamped to
+ * [{@link #MIN_RTO_MS}, {@link #MAX_RTO_MS}], and is the initial timeout until a sample
+ * arrives. Samples are {@link System#nanoTime} differences.
+ * <p>
+ * Karn's rule is the caller's job: only sample frames that were sent once, because
+ * the ACK of a retransmitted frame cannot be matched to one transmission. Each timeout
+ * doubles the RTO ({@link #backoff}). The backoff is cleared by the next valid sample or,
+ * as in QUIC, by any ACK of new frames ({@link #resetBackoff}). Without that, a lossy
+ * Go-Back-N window would leave the RTO at its maximum: after every go-back almost every
+ * ACK covers a retransmitted frame, so Karn's rule would never allow another sample.
+ */
+public class RttEstimator {
+    static final long MIN_RTO_MS = 10;
+    static final long MAX_RTO_MS = 60_000;
+
+    private static final long MIN_RTO = TimeUnit.MILLISECONDS.toNanos(MIN_RTO_MS);
+    private static final long MAX_RTO = TimeUnit.MILLISECONDS.toNanos(MAX_RTO_MS);
+
+    private long srtt;   // smoothed RTT, ns; 0 until the first sample
+    private long rttvar; // RTT variation, ns
+    private long base;   // timeout from the samples, ns
+    private long rto;    // current timeout, ns, backoff included
+
+    public RttEstimator(long initialTimeoutMs) {
+        this.base = clamp(TimeUnit.MILLISECONDS.toNanos(initialTimeoutMs));
+        this.rto = base;
+    }
+
+    // Feeds one round-trip time of a frame that was not retransmitted
+    public void sample(long rttNanos) {
+        if (rttNanos < 0) {
+            return;
+        }
+        if (srtt == 0) {
+            srtt = Math.max(1, rttNanos);
+            rttvar = rttNanos / 2;
+        } else {
+            rttvar += (Math.abs(srtt - rttNanos) - rttvar) / 4;
+            srtt += (rttNanos - srtt) / 8;
+        }
+        base = clamp(srtt + 4 * rttvar);
+        rto = base;
+    }
+
+    // Doubles the timeout after it expired
+    public void backoff() {
+        rto = clamp(2 * rto);
+    }
+
+    // New frames were acknowledged: the path works again, so drop the backoff
+    public void resetBackoff() {
+        rto = base;
+    }
+
+    public long timeoutNanos() {
+        return rto;
+    }
+
+    // The timeout for Socket.setSoTimeout, where 0 would mean wait forever
+    public int timeoutMillis() {
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(rto + 999_999));
+    }
+
+    public long srttNanos() {
+        return srtt;
+    }
+
+    private static long clamp(long nanos) {
+        return Math.min(MAX_RTO, Math.max(MIN_RTO, nanos));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SRTT %.3f ms, RTTVAR %.3f ms, RTO %d ms",
+                srtt / 1e6, rttvar / 1e6, timeoutMillis());
+    }
+}
@@ -0,0 +1,58 @@
+package Assignments.Assignment2;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Selective ACK bitmap: which frames above the cumulative ACK point the receiver holds.
+ * <p>
+ * The receiver answers with SACK:cum:bitmap, where cum is the wire number of the last
+ * in-order frame and the bitmap is a hex string. Bit b of hex digit j stands for frame
+ * cum + 2 + 4j + b; frame cum + 1 is always missing, or cum would be higher. Trailing
+ * zero digits are left out, so the bitmap is empty when nothing is held out of order
+ * and never longer than a quarter of the window in characters.
+ */
+public final class SackBitmap {
+
+    private SackBitmap() {
+    }
+
+    /**
+     * Encodes the frames in (first, last] that are set in received, a ring indexed by
+     * frame number mod (mask + 1); last - first must be at most mask.
+     */
+    public static String encode(boolean[] received, int mask, int first, int last) {
+        int bits = last - first; // frames first + 1 .. last
+        StringBuilder bitmap = new StringBuilder(Math.max(0, bits + 3) / 4);
+        for (int j = 0; 4 * j < bits; j++) {
+            int digit = 0;
+            for (int b = 0; b < 4 && 4 * j + b < bits; b++) {
+                if (received[(first + 1 + 4 * j + b) & mask]) {
+                    digit |= 1 << b;
+                }
+            }
+            bitmap.append(Character.forDigit(digit, 16));
+        }
+        // Trailing zero digits carry nothing
+        int length = bitmap.length();
+        while (length > 0 && bitmap.charAt(length - 1) == '0') {
+            length--;
+        }
+        bitmap.setLength(length);
+        return bitmap.toString();
+    }
+
+    // Calls onFrame for every frame the bitmap marks as held, first being the missing frame cum + 1
+    public static void forEach(String bitmap, int first, IntConsumer onFrame) {
+        for (int j = 0; j < bitmap.length(); j++) {
+            int digit = Character.digit(bitmap.charAt(j), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Bad SACK bitmap: " + bitmap);
+            }
+            for (int b = 0; b < 4; b++) {
+                if ((digit >> b & 1) != 0) {
+                    onFrame.accept(first + 1 + 4 * j + b);
+                }
+            }
+        }
+    }
+}
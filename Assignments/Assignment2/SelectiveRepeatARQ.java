@@ -4,26 +4,59 @@ import java.io.*;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import static Assignments.Assignment1.Utils.exportToCSV;
 import static Assignments.Assignment2.Sender.*;
 
+/**
+ * Selective Repeat sender. The window is a {@link SendWindow} ring, and every frame in
+ * it has its own retransmission timer on a {@link TimingWheel}, armed with the current
+ * RTO when the frame is sent, so a timeout resends only the frames whose own deadline
+ * passed. The receiver answers with SACKs ({@link SackBitmap}), and every hole they show
+ * is resent as soon as a frame sent after it is reported, without waiting for its timer.
+ */
 public class SelectiveRepeatARQ {
 //    final int TIMEOUT_MS = 5000;
 //    final int TOTAL_FRAMES = 7;
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final int WHEEL_SLOTS = 512;
 
-    // store time taken for each frame
+    // store time taken for each frame (the first FRAME_TIMES_KEPT frames)
     private final Map<Integer, Long> frameTimes = new LinkedHashMap<>();
-    // store the first send time for each frame index
+    // store the first send time (System.nanoTime) for each acknowledged frame, for the CSV export
     private final Map<Integer, Long> sendTimeMap = new HashMap<>();
+    private final RttEstimator rtt = new RttEstimator(TIMEOUT_MS);
+    // send times, transmission counts and ACK bits of the frames in flight
+    private final SendWindow window = new SendWindow(windowSize);
+    // the frames in flight, by sequence number mod the window capacity
+    private final String[] inFlight = new String[window.capacity()];
+    // retransmission timer of each unacknowledged frame
+    private final TimingWheel timers = new TimingWheel(TICK_NANOS, WHEEL_SLOTS, window.capacity(), System.nanoTime());
+    private final int[] expired = new int[window.capacity()];
+    private int expiredCount;
+    private FrameBuilder.FrameStream frames;
+    private final IntConsumer collectExpired = f -> expired[expiredCount++] = f;
+    // state of the SACK being processed, in fields so that walking its bitmap does not allocate
+    private final IntConsumer onSacked = this::sackFrame;
+    private long sackNow;
+    private long sampleSent; // send time of the RTT sample among the SACKed frames, sackNow if none
+    private int highestSacked;
+    private boolean sackedAny;
+    private boolean deliveredAny;
+    private long latestDelivered; // last send time of the latest frame known to have arrived
     long totalTime = 0;
+    long retransmissions = 0;
+    private long framesAcked = 0;
 
     public SelectiveRepeatARQ() throws IOException {
         run();
     }
 
     protected void run() throws IOException {
-        try (Socket socket = new Socket(host, port);
+        try (FrameBuilder.FrameStream frames = openFrames();
+             Socket socket = new Socket(host, port);
              PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
 
@@ -31,106 +64,214 @@ public class SelectiveRepeatARQ {
 
             // tell receiver : Selective Repeat
             out.println("3");
-            out.println(TOTAL_FRAMES);
+            out.println(handshake(frames));
 
             Random random = new Random();
-            LinkedHashSet<Integer> window = new LinkedHashSet<>();
-            int nextFrame = 0;
-
-            // fill initial window
-            for (int j = 0; j < N && j < TOTAL_FRAMES; j++) {
-                window.add(nextFrame++);
-            }
+            this.frames = frames;
 
             // send initial window
-            for (int f : window) {
-                sendFrame(f, random, out);
-            }
-
-
-            startTimer(socket);
+            fillWindow(random, out);
 
             while (!window.isEmpty()) {
+                waitForNextTimer(socket);
                 try {
                     String res = in.readLine();
-                    if (res == null) break;
-                    recvResponse(res, window, out, random, socket); // handle ACK/NAK
+                    if (res == null) {
+                        throw new IOException("Receiver closed the connection with frames unacknowledged from "
+                                + window.base());
+                    }
+                    recvResponse(res, out, random); // handle ACK/NAK
                 } catch (SocketTimeoutException e) {
-                    handleTimeout(window, out, random, socket);
+                    // a frame timer is due
                 }
+                // ACKs arriving do not postpone the timers of other frames
+                handleTimeout(out, random);
             }
 
             System.out.println("==================================================");
             System.out.println("Sender : Total transmission time for all frames: " + totalTime + " ms");
+            System.out.println("Sender : Retransmissions: " + retransmissions);
             String fileName = String.format("Assignments/Assignment2/csvframe_times_selective_repeat%d.csv", PROB);
 //            exportToCSV(sendTimeMap, frameTimes, fileName);
         }
     }
 
+    // Sends new frames, read from the input as they are needed, until the window holds windowSize of them
+    private void fillWindow(Random random, PrintWriter out) {
+        while (window.outstanding() < windowSize && frames.hasNext()) {
+            inFlight[window.next() & (inFlight.length - 1)] = frames.next();
+            sendFrame(window.next(), random, out);
+        }
+    }
+
     private void sendFrame(int i, Random random, PrintWriter out) {
-        String frame = frameList.get(i);
+        String frame = inFlight[i & (inFlight.length - 1)];
         if (random.nextInt(100) < PROB) {
             System.out.println("Sender : Successfully Sent frame " + i);
-            out.println(i + ":" + frame);
+            out.println(SeqNum.wire(i) + ":" + frame);
         } else {
             System.out.println("Sender : Frame " + i + " lost in transmission... (simulating loss)");
         }
-        sendTimeMap.putIfAbsent(i, System.currentTimeMillis());
+        if (i != window.next()) {
+            retransmissions++;
+        }
+        window.sent(i, System.nanoTime());
+        startTimer(i);
     }
 
 
-    private void startTimer(Socket socket) throws IOException {
-        socket.setSoTimeout(TIMEOUT_MS);
-        System.out.println("\nSender : Timer Started/Restarted ...\n");
+    private void startTimer(int i) {
+        timers.schedule(i, System.nanoTime() + rtt.timeoutNanos());
     }
 
-    // Handles retransmission
-    private void handleTimeout(LinkedHashSet<Integer> window, PrintWriter out, Random random, Socket socket) throws IOException {
-        System.out.println("Sender : Timeout! Retransmitting all unacknowledged frames in window");
-        for (int f : window) {
-            sendFrame(f, random, out);
+    // Blocks the next read no longer than until the earliest frame timer is due
+    private void waitForNextTimer(Socket socket) throws IOException {
+        long wait = timers.nanosUntilNext(System.nanoTime());
+        int millis = wait < 0 ? rtt.timeoutMillis() : (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait + 999_999));
+        socket.setSoTimeout(millis);
+    }
+
+    // Retransmits only the frames whose own timer expired
+    private void handleTimeout(PrintWriter out, Random random) {
+        expiredCount = 0;
+        timers.expire(System.nanoTime(), collectExpired);
+        if (expiredCount == 0) {
+            return;
+        }
+        System.out.println("Sender : Timeout after " + rtt.timeoutMillis()
+                + " ms! Retransmitting frames " + Arrays.toString(Arrays.copyOf(expired, expiredCount)));
+        // Back off once per loss, when the oldest frame times out, not once per frame timer
+        if (!timers.isScheduled(window.base())) {
+            rtt.backoff();
+        }
+        for (int k = 0; k < expiredCount; k++) {
+            sendFrame(expired[k], random, out);
         }
-        startTimer(socket);
     }
 
-    // Receives an ACK and computes the RTT/time taken for the frame.
-    private void recvResponse(String res, LinkedHashSet<Integer> window,
-                              PrintWriter out, Random random, Socket socket) throws IOException {
-        if (res.startsWith("ACK")) {
-            int ackNum = Integer.parseInt(res.split(":")[1]);
-            System.out.println("Sender : Received cumulative ACK for frame " + ackNum);
+    // Receives an ACK or SACK and computes the RTT/time taken for the frame.
+    private void recvResponse(String res, PrintWriter out, Random random) {
+        if (res.startsWith("SACK")) {
+            // e.g., "SACK:3:5": frames up to 3 arrived, 4 is missing, and 5 and 7 are held after it
+            String[] parts = res.split(":", -1);
+            int ackNum = SeqNum.unwrap(Integer.parseInt(parts[1]), window.base());
+            System.out.println("Sender : Received SACK for frame " + ackNum
+                    + (parts[2].isEmpty() ? "" : " [" + parts[2] + "]"));
 
-            // find which frames in window are <= ackNum
-            List<Integer> ackedFrames = new ArrayList<>();
-            for (int f : window) {
-                if (f <= ackNum && !frameTimes.containsKey(f)) {
-                    long timeTaken = System.currentTimeMillis() - sendTimeMap.get(f);
-                    frameTimes.put(f, timeTaken);
-                    totalTime += timeTaken;
-                    System.out.println("Sender : Time taken for frame " + f + ": " + timeTaken + " ms");
-                    ackedFrames.add(f);
+            sackNow = System.nanoTime();
+            deliveredAny = false;
+            sackedAny = false;
+            highestSacked = ackNum;
+            boolean sampled = cumulativeAck(ackNum, sackNow);
+            sampleSent = sackNow;
+            SackBitmap.forEach(parts[2], ackNum + 1, onSacked);
+            if (sackedAny) {
+                // A held frame was SACKed when it arrived, so a newly SACKed frame sent once is a
+                // clean RTT sample even while a hole holds the cumulative ACK back
+                if (!sampled && sampleSent != sackNow) {
+                    rtt.sample(sackNow - sampleSent);
+                } else {
+                    rtt.resetBackoff();
                 }
-                if (f > ackNum) break;
             }
+            retransmitHoles(random, out);
 
-            // Slide window: remove acked frames and insert new frames
-            int nextFrame = (window.isEmpty()) ? ackNum + 1 : Collections.max(window) + 1;
-            for (int f : ackedFrames) {
-                window.remove(f);
-                if (nextFrame < TOTAL_FRAMES) {
-                    window.add(nextFrame);
-                    sendFrame(nextFrame, random, out);
-                    nextFrame++;
-                }
+            window.slide();
+            fillWindow(random, out);
+
+            System.out.println("Sender : Current window: " + window.base() + ".." + (window.next() - 1)
+                    + " (" + rtt + ")");
+        } else if (res.startsWith("ACK")) {
+            // The wire number wraps; the nearest frame to the window base is meant
+            int ackNum = SeqNum.unwrap(Integer.parseInt(res.split(":")[1]), window.base());
+            System.out.println("Sender : Received cumulative ACK for frame " + ackNum);
+
+            cumulativeAck(ackNum, System.nanoTime());
+
+            // Slide window past the acked frames and send the new ones
+            window.slide();
+            fillWindow(random, out);
+
+            System.out.println("Sender : Current window: " + window.base() + ".." + (window.next() - 1)
+                    + " (" + rtt + ")");
+        }
+    }
+
+    // Acknowledges the frames of the window up to ackNum, without sliding past them yet; true if
+    // that gave an RTT sample
+    private boolean cumulativeAck(int ackNum, long now) {
+        int last = ackNum - window.next() < 0 ? ackNum : window.next() - 1;
+        boolean retransmittedAny = false;
+        for (int f = window.base(); f - last <= 0; f++) {
+            retransmittedAny |= window.retransmitted(f);
+            noteDelivered(f);
+            if (window.ack(f)) {
+                frameAcked(f, now);
             }
+        }
+        // One RTT sample per ACK, from the frame that triggered it. Karn's rule: none if
+        // the ACK covers a retransmission, since it may have been held back by that hole.
+        // A duplicate ACK from below the window acknowledges nothing new
+        if (last - window.base() >= 0) {
+            if (last == ackNum && !retransmittedAny) {
+                rtt.sample(now - window.lastSent(ackNum));
+                return true;
+            }
+            rtt.resetBackoff();
+        }
+        return false;
+    }
+
+    // A frame the receiver holds out of order
+    private void sackFrame(int f) {
+        if (!window.contains(f)) {
+            return;
+        }
+        noteDelivered(f);
+        highestSacked = f;
+        if (window.ack(f)) {
+            frameAcked(f, sackNow);
+            sackedAny = true;
+            // the newest frame sent once among those newly SACKed
+            if (!window.retransmitted(f) && (sampleSent == sackNow || window.lastSent(f) - sampleSent > 0)) {
+                sampleSent = window.lastSent(f);
+            }
+        }
+    }
+
+    // Frames go through in the order they are sent, so a frame sent once whose copy arrived proves
+    // that every frame last sent before it was lost
+    private void noteDelivered(int f) {
+        if (window.transmissions(f) == 1
+                && (!deliveredAny || window.lastSent(f) - latestDelivered > 0)) {
+            latestDelivered = window.lastSent(f);
+            deliveredAny = true;
+        }
+    }
+
+    // Resends the unacknowledged frames below the highest SACKed one that were last sent before a
+    // frame that got through: each hole once per round trip, instead of waiting for its timer
+    private void retransmitHoles(Random random, PrintWriter out) {
+        if (!deliveredAny) {
+            return;
+        }
+        for (int f = window.base(); f - highestSacked < 0 && window.contains(f); f++) {
+            if (!window.isAcked(f) && window.lastSent(f) - latestDelivered < 0) {
+                System.out.println("Sender : SACK shows frame " + f + " lost, retransmitting");
+                sendFrame(f, random, out);
+            }
+        }
+    }
 
-            System.out.println("Sender : Current window: " + window);
-            startTimer(socket);
-        } else if (res.startsWith("NAK")) {
-            int nakNum = Integer.parseInt(res.split(":")[1]);
-            System.out.println("Sender : NAK received for frame " + nakNum);
-            sendFrame(nakNum, random, out);
+    private void frameAcked(int f, long now) {
+        timers.cancel(f);
+        long timeTaken = TimeUnit.NANOSECONDS.toMillis(now - window.firstSent(f));
+        if (framesAcked++ < FRAME_TIMES_KEPT) {
+            frameTimes.put(f, timeTaken);
+            sendTimeMap.put(f, window.firstSent(f));
         }
+        totalTime += timeTaken;
+        System.out.println("Sender : Time taken for frame " + f + ": " + timeTaken + " ms");
     }
 
     public Map<Integer, Long> getFrameTimes() {
@@ -0,0 +1,129 @@
+package Assignments.Assignment2;
+
+/**
+ * Sender window over sequence numbers [base, next), kept in a ring of primitive arrays.
+ * <p>
+ * Frame seq lives in slot seq mod capacity, with capacity a power of two no smaller
+ * than the window. Each slot holds the frame's first and last send time
+ * ({@link System#nanoTime}), its transmission count and its ACK bit. Every operation
+ * is O(1) apart from {@link #slide} and {@link #ackThrough}, which visit each frame
+ * once as the window moves past it, so ACK processing is O(1) amortized and does not
+ * allocate.
+ * <p>
+ * Sequence numbers are frame counts that may overflow an int, so the window compares
+ * them by difference ({@link SeqNum}). The ring index seq mod capacity survives the
+ * wrap because the capacity divides 2^32.
+ */
+public class SendWindow {
+    private final int mask;
+    private final long[] firstSent;
+    private final long[] lastSent;
+    private final int[] transmissions;
+    private final boolean[] acked;
+    private int base; // oldest unacknowledged frame
+    private int next; // next new frame
+
+    public SendWindow(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.mask = capacity - 1;
+        this.firstSent = new long[capacity];
+        this.lastSent = new long[capacity];
+        this.transmissions = new int[capacity];
+        this.acked = new boolean[capacity];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int base() {
+        return base;
+    }
+
+    public int next() {
+        return next;
+    }
+
+    // Frames sent and not yet slid out
+    public int outstanding() {
+        return next - base;
+    }
+
+    public boolean isEmpty() {
+        return next == base;
+    }
+
+    public boolean contains(int seq) {
+        return seq - base >= 0 && seq - next < 0;
+    }
+
+    /**
+     * Records a transmission of seq: the next new frame, or a retransmission of a
+     * frame still in the window.
+     */
+    public void sent(int seq, long nowNanos) {
+        int i = seq & mask;
+        if (seq == next) {
+            if (next - base > mask) {
+                throw new IllegalStateException("Window full: " + base + ".." + (next - 1));
+            }
+            firstSent[i] = nowNanos;
+            transmissions[i] = 0;
+            acked[i] = false;
+            next++;
+        } else if (!contains(seq)) {
+            throw new IllegalArgumentException("Frame " + seq + " is outside the window " + base + ".." + (next - 1));
+        }
+        lastSent[i] = nowNanos;
+        transmissions[i]++;
+    }
+
+    public long firstSent(int seq) {
+        return firstSent[seq & mask];
+    }
+
+    public long lastSent(int seq) {
+        return lastSent[seq & mask];
+    }
+
+    public int transmissions(int seq) {
+        return transmissions[seq & mask];
+    }
+
+    // Karn's rule: the ACK of a frame sent more than once gives no RTT sample
+    public boolean retransmitted(int seq) {
+        return transmissions[seq & mask] > 1;
+    }
+
+    public boolean isAcked(int seq) {
+        return seq - base < 0 || (seq - next < 0 && acked[seq & mask]);
+    }
+
+    // Marks one frame acknowledged without sliding; returns false if it already was
+    public boolean ack(int seq) {
+        if (!contains(seq) || acked[seq & mask]) {
+            return false;
+        }
+        acked[seq & mask] = true;
+        return true;
+    }
+
+    // Moves base past the acknowledged frames at the front; returns how many left
+    public int slide() {
+        int start = base;
+        while (base != next && acked[base & mask]) {
+            acked[base & mask] = false;
+            base++;
+        }
+        return base - start;
+    }
+
+    // Cumulative ACK: acknowledges every frame up to seq and slides past them
+    public int ackThrough(int seq) {
+        int last = seq - next < 0 ? seq : next - 1;
+        for (int f = base; f - last <= 0; f++) {
+            acked[f & mask] = true;
+        }
+        return slide();
+    }
+}
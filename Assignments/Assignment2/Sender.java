@@ -9,25 +9,28 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
-import static Assignments.Assignment2.FrameBuilder.createFrames;
+import static Assignments.Assignment2.FrameBuilder.streamFrames;
 
 public class Sender {
-    private String inputFilePath, senderMacAddress, recieverMacAddress;
+    private static String inputFilePath, senderMacAddress, recieverMacAddress;
     private static final String LEN_BIN = "00101110" + "00101110"; // 46 decimal
-    protected static List<String> frameList; // frame 1 -> 5 frames for different schems with error injected in 4/5 out of them
     protected static int  port;
     protected static String host;
     protected static final int TIMEOUT_MS = 5000; // timeout after 5000ms
     protected static final int TOTAL_FRAMES = 7;
     protected static final int PROB =95;
     protected static final int N = 3;
+    // per-frame times are kept for the CSV export up to this many frames; totals cover every frame
+    protected static final int FRAME_TIMES_KEPT = 10_000;
+
+    protected static long maxFrames = TOTAL_FRAMES; // frames per transfer, 0 = the whole input
+    protected static int windowSize = N;
 
 
     public Sender(String inputFilePath, String senderMAC, String recieverMAC) throws IOException {
-        this.inputFilePath = inputFilePath;
-        this.senderMacAddress = macToBinary(senderMAC);
-        this.recieverMacAddress = macToBinary(recieverMAC);
-        frameList = createFrames(inputFilePath, senderMacAddress, recieverMacAddress, LEN_BIN);
+        Sender.inputFilePath = inputFilePath;
+        Sender.senderMacAddress = macToBinary(senderMAC);
+        Sender.recieverMacAddress = macToBinary(recieverMAC);
     }
 
     private static String macToBinary(String mac) {
@@ -37,10 +40,20 @@ public class Sender {
                 .reduce("", String::concat);
     }
 
+    // A fresh stream of the frames of one transfer, read from the input as the ARQ asks for them
+    protected static FrameBuilder.FrameStream openFrames() throws IOException {
+        return streamFrames(inputFilePath, senderMacAddress, recieverMacAddress, LEN_BIN, maxFrames);
+    }
+
+    // Second handshake line: frame count (-1 when unbounded) and window size
+    protected static String handshake(FrameBuilder.FrameStream frames) {
+        return (maxFrames > 0 ? frames.frameCount() : -1) + ":" + windowSize;
+    }
+
 
     public static void main(String[] args) throws IOException {
         if (args.length < 5) {
-            System.err.println("Usage: java Assignments.Assignment1.Sender <host> <port> <inputfile> <senderMac> <recieverMac>");
+            System.err.println("Usage: java Assignments.Assignment1.Sender <host> <port> <inputfile> <senderMac> <recieverMac> [frames] [window]");
             return;
         }
 
@@ -49,6 +62,17 @@ public class Sender {
         String inputFilePath = args[2];
         String senderMAC = args[3];
         String recieverMAC = args[4];
+        if (args.length > 5) {
+            // 0 streams the whole input
+            maxFrames = Long.parseLong(args[5]);
+        }
+        if (args.length > 6) {
+            windowSize = Integer.parseInt(args[6]);
+            if (windowSize < 1 || windowSize > SeqNum.MAX_WINDOW) {
+                System.err.println("Window must be 1.." + SeqNum.MAX_WINDOW + " frames");
+                return;
+            }
+        }
         Sender sender = new Sender(inputFilePath, senderMAC, recieverMAC);
         outer:
         while (true) {
@@ -74,3 +98,4 @@ public class Sender {
 }
 
 // java Assignments.Assignment2.Sender localhost 5000 Assignments/Assignment2/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7
+// java Assignments.Assignment2.Sender localhost 5000 Assignments/Assignment2/inputfile.txt 98-BA-5F-ED-66-B7 AA-BA-5F-ED-66-B7 0 64
@@ -0,0 +1,30 @@
+package Assignments.Assignment2;
+
+/**
+ * Frame numbers on the wire, which wrap after {@link #MODULUS} frames.
+ * <p>
+ * Both ends count frames in an int that is allowed to overflow, so all comparisons are
+ * written as differences (a - b < 0), as in serial number arithmetic (RFC 1982). A
+ * frame goes on the wire as the low {@link #BITS} bits of its count. The other end
+ * recovers the full count as the one nearest to a reference it already has, such as
+ * the window base or the next expected frame. That is unambiguous while the sender's
+ * window is at most MODULUS / 2 frames, the Selective Repeat limit.
+ */
+public final class SeqNum {
+    public static final int BITS = 16;
+    public static final int MODULUS = 1 << BITS;
+    public static final int MAX_WINDOW = MODULUS / 2;
+
+    private SeqNum() {
+    }
+
+    // The wire number of a frame count
+    public static int wire(int frame) {
+        return frame & (MODULUS - 1);
+    }
+
+    // The frame count nearest to reference whose wire number is seq
+    public static int unwrap(int seq, int reference) {
+        return reference + ((seq - reference) << (32 - BITS) >> (32 - BITS));
+    }
+}
@@ -7,13 +7,13 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import static Assignments.Assignment1.Utils.exportToCSV;
 
 import static Assignments.Assignment2.Sender.host;
 import static Assignments.Assignment2.Sender.port;
-import static Assignments.Assignment2.Sender.frameList;
-import static Assignments.Assignment2.Sender.TOTAL_FRAMES;
+import static Assignments.Assignment2.Sender.FRAME_TIMES_KEPT;
 import static Assignments.Assignment2.Sender.TIMEOUT_MS;
 import static Assignments.Assignment2.Sender.PROB;
 
@@ -22,17 +22,24 @@ public class StopAndWait {
 //    final int TOTAL_FRAMES = 5;
 //    final int PROB = 95;
 
-    // store time taken for each frame
+    // store time taken for each frame (the first FRAME_TIMES_KEPT frames)
     private final Map<Integer, Long> frameTimes = new LinkedHashMap<>();
-    // store the first send time for each frame index
+    // store the first send time (System.nanoTime) for each frame index (the first FRAME_TIMES_KEPT frames)
     private final Map<Integer, Long> sendTimeMap = new HashMap<>();
+    private final RttEstimator rtt = new RttEstimator(TIMEOUT_MS);
+    // the one frame in flight: its first send time and transmission count
+    private long firstSent;
+    private int transmissions;
+    private long timeTaken;
+    private long deadline; // when the timer of the frame in flight fires (System.nanoTime)
 
     public StopAndWait() throws IOException {
         run();
     }
 
     protected void run() throws IOException {
-        try (Socket socket = new Socket(host, port);
+        try (FrameBuilder.FrameStream frames = Sender.openFrames();
+             Socket socket = new Socket(host, port);
              PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
 
@@ -40,17 +47,19 @@ public class StopAndWait {
 
             // tell receiver : Stop And Wait
             out.println("1");
-            out.println(TOTAL_FRAMES);
+            out.println(Sender.handshake(frames));
 
             long totalTime = 0;
-            socket.setSoTimeout(TIMEOUT_MS);
             Random random = new Random();
 
-            for (int i = 0; i < frameList.size() && i < TOTAL_FRAMES; i++) {
+            // Frames are read from the input one at a time, so the stream can be any length
+            for (int i = 0; frames.hasNext(); i++) {
+                String frame = frames.next();
                 boolean ackReceived = false;
+                transmissions = 0;
 
                 while (!ackReceived) {
-                    sendFrame(i, random, out);
+                    sendFrame(i, frame, random, out);
                     startTimer(socket);
 
                     try {
@@ -60,7 +69,7 @@ public class StopAndWait {
                     }
                 }
 
-                totalTime += frameTimes.get(i);
+                totalTime += timeTaken;
             }
 
             System.out.println("==================================================");
@@ -71,50 +80,81 @@ public class StopAndWait {
     }
 
 
-    private void sendFrame(int frameNumber, Random random, PrintWriter out) {
-        String frame = frameList.get(frameNumber);
+    private void sendFrame(int frameNumber, String frame, Random random, PrintWriter out) {
         if (random.nextInt(100) < PROB) {
             System.out.println("Sender : Successfully Sent frame " + frameNumber);
-            out.println(frameNumber + ":" + frame);
+            out.println(SeqNum.wire(frameNumber) + ":" + frame);
         } else {
             System.out.println("Sender : Frame " + frameNumber + " lost in transmission... (simulating loss)");
         }
         // record first send time only
-        sendTimeMap.putIfAbsent(frameNumber, System.currentTimeMillis());
-
+        if (transmissions++ == 0) {
+            firstSent = System.nanoTime();
+            if (frameNumber >= 0 && frameNumber < FRAME_TIMES_KEPT) {
+                sendTimeMap.put(frameNumber, firstSent);
+            }
+        }
     }
 
 
     private void startTimer(Socket socket) throws IOException {
-        socket.setSoTimeout(TIMEOUT_MS);
-        System.out.println("\nSender : Timer Started ...\n");
+        deadline = System.nanoTime() + rtt.timeoutNanos();
+        socket.setSoTimeout(rtt.timeoutMillis());
+        System.out.println("\nSender : Timer Started (" + rtt.timeoutMillis() + " ms) ...\n");
     }
 
     // Handles retransmission
     private void handleTimeout(int i) {
         System.out.println("Sender : Timeout: No ACK for frame " + i + " within "
-                + TIMEOUT_MS / 1000 + "s");
+                + rtt.timeoutMillis() + " ms");
+        rtt.backoff();
         System.out.println("Sender : Retransmitting frame " + i + "...");
     }
 
     // Receives an ACK and computes the RTT/time taken for the frame.
     private boolean recvAck(int i, BufferedReader in, Socket socket) throws IOException {
-        String ack = in.readLine();
-        long endTime = System.currentTimeMillis();
-
-        if ("ACK".equals(ack)) {
-            long sentAt = sendTimeMap.get(i);
-            long timeTaken = endTime - sentAt;
+        String ack;
+        long endTime;
+        while (true) {
+            ack = in.readLine();
+            endTime = System.nanoTime();
+            if (ack == null) {
+                throw new IOException("Receiver closed the connection before frame " + i + " was acknowledged");
+            }
+            if (!ack.startsWith("ACK")) {
+                return false;
+            }
+            // e.g., "ACK:3"; the wire number wraps, the nearest frame to i is meant
+            int ackNum = SeqNum.unwrap(Integer.parseInt(ack.split(":")[1]), i);
+            if (ackNum == i) {
+                break;
+            }
+            // A late ACK of an earlier transmission: keep waiting, without restarting the timer
+            System.out.println("Sender : Ignored stale ACK for frame " + ackNum + " while waiting for frame " + i);
+            long remaining = deadline - endTime;
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Timer expired for frame " + i);
+            }
+            socket.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining + 999_999)));
+        }
+        long elapsed = endTime - firstSent;
+        timeTaken = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (i >= 0 && i < FRAME_TIMES_KEPT) {
             frameTimes.put(i, timeTaken);
+        }
+        // Karn's rule: only a frame sent once gives an RTT sample
+        if (transmissions == 1) {
+            rtt.sample(elapsed);
+        } else {
+            rtt.resetBackoff();
+        }
 
-            System.out.println("Sender : Frame " + i + " acknowledged. Time taken: "
-                    + frameTimes.get(i) + " ms");
+        System.out.println("Sender : Frame " + i + " acknowledged. Time taken: "
+                + timeTaken + " ms (" + rtt + ")");
 
-            socket.setSoTimeout(TIMEOUT_MS);
-            System.out.println("\nSender : Timer Restarted ...\n");
+        socket.setSoTimeout(rtt.timeoutMillis());
+        System.out.println("\nSender : Timer Restarted ...\n");
 
-            return true;
-        }
-        return false;
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package Assignments.Assignment2;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Hashed timing wheel of per-frame retransmission timers, on {@link System#nanoTime}.
+ * <p>
+ * Time is cut into ticks and a timer due at tick t sits in slot t mod slots, in a
+ * doubly linked list, so scheduling and cancelling are O(1) whatever the number of
+ * timers. {@link #expire} walks only the slots of the ticks that passed since the last
+ * call and fires the timers whose tick has come; timers more than one rotation ahead
+ * stay in their slot until a later pass. Deadlines are rounded up to a tick, so a
+ * timer never fires early and fires at most one tick late.
+ * <p>
+ * Timers are preallocated, one per id mod capacity, so at most capacity ids (such
+ * as the frames of a {@link SendWindow} of that capacity) may be armed at once, and
+ * nothing is allocated after construction.
+ * <p>
+ * Not thread-safe: the sender's loop owns it.
+ */
+public class TimingWheel {
+    private static final class Timer {
+        int id;
+        boolean armed;
+        long tick;
+        Timer prev, next;
+    }
+
+    private final long tickNanos;
+    private final long origin;
+    private final Timer[] slots;
+    private final int mask;
+    private final Timer[] timers;
+    private final int idMask;
+    private int armed;
+    private long current; // first tick not yet expired
+
+    // slots and capacity are rounded up to powers of two
+    public TimingWheel(long tickNanos, int slots, int capacity, long nowNanos) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.origin = nowNanos;
+        this.slots = new Timer[size];
+        this.mask = size - 1;
+        this.timers = new Timer[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+        this.idMask = timers.length - 1;
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new Timer();
+        }
+    }
+
+    public int size() {
+        return armed;
+    }
+
+    public boolean isScheduled(int id) {
+        Timer timer = timers[id & idMask];
+        return timer.armed && timer.id == id;
+    }
+
+    // Arms (or re-arms) the timer of id to fire at deadlineNanos
+    public void schedule(int id, long deadlineNanos) {
+        Timer timer = timers[id & idMask];
+        if (timer.armed) {
+            if (timer.id != id) {
+                throw new IllegalStateException("Timer " + id + " collides with armed timer " + timer.id);
+            }
+            unlink(timer);
+        } else {
+            timer.id = id;
+            timer.armed = true;
+            armed++;
+        }
+        timer.tick = Math.max(current, Math.floorDiv(deadlineNanos - origin + tickNanos - 1, tickNanos));
+        link(timer);
+    }
+
+    public boolean cancel(int id) {
+        Timer timer = timers[id & idMask];
+        if (!timer.armed || timer.id != id) {
+            return false;
+        }
+        disarm(timer);
+        return true;
+    }
+
+    /**
+     * Fires every timer due by nowNanos and returns how many fired. A fired timer is
+     * removed before onExpire runs, so the callback may schedule the same id again.
+     */
+    public int expire(long nowNanos, IntConsumer onExpire) {
+        long now = Math.floorDiv(nowNanos - origin, tickNanos);
+        if (now < current) {
+            return 0;
+        }
+        int fired = 0;
+        // After a full rotation every slot has been visited once
+        long last = Math.min(now, current + slots.length - 1);
+        for (long t = current; t <= last; t++) {
+            Timer timer = slots[(int) (t & mask)];
+            while (timer != null) {
+                Timer next = timer.next;
+                if (timer.tick <= now) {
+                    disarm(timer);
+                    fired++;
+                    onExpire.accept(timer.id);
+                }
+                timer = next;
+            }
+        }
+        current = now + 1;
+        return fired;
+    }
+
+    /**
+     * Time from nowNanos until the next timer is due (0 if one is overdue), or -1 when
+     * none is scheduled. Scans at most one rotation of slots.
+     */
+    public long nanosUntilNext(long nowNanos) {
+        if (armed == 0) {
+            return -1;
+        }
+        long next = Long.MAX_VALUE;
+        for (long t = current; t < current + slots.length && next == Long.MAX_VALUE; t++) {
+            for (Timer timer = slots[(int) (t & mask)]; timer != null; timer = timer.next) {
+                if (timer.tick == t) {
+                    next = t;
+                    break;
+                }
+            }
+        }
+        if (next == Long.MAX_VALUE) {
+            // Everything is more than one rotation away
+            for (Timer timer : timers) {
+                if (timer.armed) {
+                    next = Math.min(next, timer.tick);
+                }
+            }
+        }
+        return Math.max(0, origin + next * tickNanos - nowNanos);
+    }
+
+    private void disarm(Timer timer) {
+        unlink(timer);
+        timer.armed = false;
+        armed--;
+    }
+
+    private void link(Timer timer) {
+        int slot = (int) (timer.tick & mask);
+        timer.prev = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[(int) (timer.tick & mask)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = timer.next = null;
+    }
+}
@@ -0,0 +1,59 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.FrameGeometry;
+import Assignments.Assignment1.InternetChecksum;
+import Assignments.Assignment1.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One's complement checksum over the bytes of a frame, plus the frame-level
+ * {@link Utils#getChecksum} in both its packed and bit-string forms, for the default
+ * 46-byte payload and for 1500- and 9000-byte frames.
+ * Run with {@code -jvmArgs -Dchecksum.impl=scalar} to pin the scalar path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChecksumBenchmark {
+    @Param({"46", "1500", "9000"})
+    int payloadBytes;
+
+    private byte[] payload;
+    private BitFrame frame;
+    private String frameBits;
+
+    @Setup
+    public void setup() {
+        FrameGeometry geometry = FrameGeometry.of(payloadBytes);
+        SplittableRandom rnd = new SplittableRandom(42);
+        payload = new byte[geometry.frameBytes];
+        rnd.nextBytes(payload);
+
+        byte[] data = new byte[geometry.frameBytes];
+        rnd.nextBytes(data);
+        frame = new BitFrame(data, geometry.frameBits);
+        frameBits = frame.toBitString();
+    }
+
+    @Benchmark
+    public int compute() {
+        return InternetChecksum.compute(payload, 0, payload.length);
+    }
+
+    @Benchmark
+    public BitFrame getChecksumFrame() {
+        return Utils.getChecksum(frame);
+    }
+
+    @Benchmark
+    public String getChecksumBitString() {
+        return Utils.getChecksum(frameBits);
+    }
+}
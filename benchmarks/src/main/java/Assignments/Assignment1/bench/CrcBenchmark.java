@@ -0,0 +1,74 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.CrcCatalog;
+import Assignments.Assignment1.FrameGeometry;
+import Assignments.Assignment1.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRC throughput over the bytes of a frame ({@link Utils#computeCrc}) and over the
+ * frame itself ({@link Utils#getCrc} and {@link Utils#validateCrc}), for the default
+ * 46-byte payload and for 1500- and 9000-byte frames.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CrcBenchmark {
+    @Param({"8", "10", "16", "32"})
+    int width;
+
+    @Param({"46", "1500", "9000"})
+    int payloadBytes;
+
+    private FrameGeometry geometry;
+    private CrcCatalog.Spec spec;
+    private byte[] payload;
+    private BitFrame frame;
+    private BitFrame encoded;
+    private int poly, init, xorout;
+    private boolean reflected;
+
+    @Setup
+    public void setup() {
+        geometry = FrameGeometry.of(payloadBytes);
+        spec = CrcCatalog.lookup("crc" + width);
+        SplittableRandom rnd = new SplittableRandom(42);
+        payload = new byte[geometry.frameBytes];
+        rnd.nextBytes(payload);
+
+        byte[] data = new byte[geometry.frameBytes];
+        rnd.nextBytes(data);
+        frame = new BitFrame(data, geometry.frameBits);
+        encoded = Utils.getCrc(frame, spec);
+
+        // Same parameters the assignment uses for each width
+        switch (width) {
+            case 8:  poly = 0x07;       init = 0;      xorout = 0;      reflected = false; break;
+            case 10: poly = 0x233;      init = 0;      xorout = 0;      reflected = false; break;
+            case 16: poly = 0x1021;     init = 0xFFFF; xorout = 0;      reflected = false; break;
+            default: poly = 0x04C11DB7; init = -1;     xorout = -1;     reflected = true;  break;
+        }
+    }
+
+    @Benchmark
+    public int computeCrc() {
+        return Utils.computeCrc(payload, width, poly, init, reflected, reflected, xorout);
+    }
+
+    @Benchmark
+    public BitFrame getCrcFrame() {
+        return Utils.getCrc(frame, spec);
+    }
+
+    @Benchmark
+    public Integer validateCrcFrame() {
+        return Utils.validateCrc(encoded, spec, geometry);
+    }
+}
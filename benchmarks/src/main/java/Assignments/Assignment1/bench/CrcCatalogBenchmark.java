@@ -0,0 +1,57 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.CrcCatalog;
+import Assignments.Assignment1.FrameGeometry;
+import Assignments.Assignment1.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue schemes by name: crc32 and crc32c delegate to java.util.zip, the others
+ * run on the table-driven engine. Frames carry the default 46-byte payload or
+ * 1500- and 9000-byte payloads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CrcCatalogBenchmark {
+    @Param({"crc16", "crc32", "crc32c", "crc64", "crc64ecma"})
+    String scheme;
+
+    @Param({"46", "1500", "9000"})
+    int payloadBytes;
+
+    private FrameGeometry geometry;
+    private CrcCatalog.Spec spec;
+    private byte[] payload;
+    private BitFrame encoded;
+
+    @Setup
+    public void setup() {
+        geometry = FrameGeometry.of(payloadBytes);
+        spec = CrcCatalog.lookup(scheme);
+        SplittableRandom rnd = new SplittableRandom(42);
+        payload = new byte[geometry.frameBytes];
+        rnd.nextBytes(payload);
+
+        byte[] data = new byte[geometry.frameBytes];
+        rnd.nextBytes(data);
+        encoded = Utils.encode(new BitFrame(data, geometry.frameBits), scheme);
+    }
+
+    @Benchmark
+    public long compute() {
+        return spec.compute(payload, 0, payload.length);
+    }
+
+    @Benchmark
+    public Integer validateFrame() {
+        return Utils.validate(encoded, scheme, geometry);
+    }
+}
@@ -0,0 +1,63 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.ErrorInjector;
+import Assignments.Assignment1.FrameGeometry;
+import Assignments.Assignment1.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of injecting one error type into the five scheme variants of a frame, for the
+ * default 46-byte payload and for 1500- and 9000-byte frames. The
+ * variants are mutated in place and never reset; the error models do not depend on
+ * the frame contents beyond their length, so this does not skew the timing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ErrorInjectorBenchmark {
+    private static final String[] SCHEMES = {"checksum", "crc8", "crc10", "crc16", "crc32"};
+
+    // 1 single, 2 two-bit, 3 odd, 4 burst (0 injects nothing)
+    @Param({"1", "2", "3", "4"})
+    int errorType;
+
+    @Param({"46", "1500", "9000"})
+    int payloadBytes;
+
+    private FrameGeometry geometry;
+    private List<BitFrame> schemes;
+    private SplittableRandom rnd;
+
+    @Setup
+    public void setup() {
+        geometry = FrameGeometry.of(payloadBytes);
+        rnd = new SplittableRandom(42);
+        byte[] data = new byte[geometry.frameBytes];
+        rnd.nextBytes(data);
+        BitFrame frame = new BitFrame(data, geometry.frameBits);
+
+        schemes = new ArrayList<>();
+        for (String scheme : SCHEMES) {
+            schemes.add(Utils.encode(frame, scheme));
+        }
+    }
+
+    @Benchmark
+    public List<BitFrame> injectError() {
+        return ErrorInjector.injectError(schemes, SCHEMES, geometry, errorType, rnd);
+    }
+
+    @Benchmark
+    public BitFrame flipKBits() {
+        return ErrorInjector.flipKBits(schemes.get(0), 3, rnd);
+    }
+}
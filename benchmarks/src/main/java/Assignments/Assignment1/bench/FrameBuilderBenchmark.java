@@ -0,0 +1,69 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.FrameBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end frame construction from a file: read, encode all five schemes and inject
+ * errors. Throughput is whole files per second; divide by the frame count for frames.
+ * createFrames encodes on the common fork/join pool; streamFrames is the same work on
+ * one thread, so their ratio is the parallel speedup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameBuilderBenchmark {
+    private static final byte[] SENDER_MAC = {(byte) 0x98, (byte) 0xBA, 0x5F, (byte) 0xED, 0x66, (byte) 0xB7};
+    private static final byte[] RECEIVER_MAC = {(byte) 0xAA, (byte) 0xBA, 0x5F, (byte) 0xED, 0x66, (byte) 0xB7};
+    private static final byte[] LEN = {0b00101110, 0b00101110};
+
+    // Input file size in bytes
+    @Param({"4600", "460000"})
+    int inputBytes;
+
+    private Path input;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] text = new byte[inputBytes];
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) (' ' + rnd.nextInt(95));
+        }
+        input = Files.createTempFile("frames", ".txt");
+        Files.write(input, text);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+    }
+
+    @Benchmark
+    public List<List<BitFrame>> createFrames() throws IOException {
+        return FrameBuilder.createFrames(input.toString(), SENDER_MAC, RECEIVER_MAC, LEN);
+    }
+
+    @Benchmark
+    public List<List<BitFrame>> streamFrames() throws IOException {
+        List<List<BitFrame>> frames = new ArrayList<>();
+        try (FrameBuilder.FrameStream stream = FrameBuilder.streamFrames(input.toString(), SENDER_MAC, RECEIVER_MAC, LEN)) {
+            while (stream.hasNext()) {
+                frames.add(stream.next());
+            }
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,57 @@
+package Assignments.Assignment1.bench;
+
+import Assignments.Assignment1.BitFrame;
+import Assignments.Assignment1.FrameEncoder;
+import Assignments.Assignment1.FrameGeometry;
+import Assignments.Assignment1.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one frame with the default five schemes: the single-pass batch encoder
+ * into reused outputs against one {@link Utils#encode} call per scheme, for the default
+ * 46-byte payload and for 1500- and 9000-byte frames (compare per payload byte).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameEncoderBenchmark {
+    private static final String[] SCHEMES = {"checksum", "crc8", "crc10", "crc16", "crc32"};
+
+    @Param({"46", "1500", "9000"})
+    public int payload;
+
+    private BitFrame frame;
+    private FrameEncoder encoder;
+    private BitFrame[] outputs;
+
+    @Setup
+    public void setup() {
+        FrameGeometry geometry = FrameGeometry.of(payload);
+        byte[] data = new byte[geometry.frameBytes];
+        new SplittableRandom(42).nextBytes(data);
+        frame = new BitFrame(data, geometry.frameBits);
+        encoder = new FrameEncoder(SCHEMES, geometry);
+        outputs = encoder.newOutputs();
+    }
+
+    @Benchmark
+    public BitFrame[] batch() {
+        encoder.encode(frame, outputs);
+        return outputs;
+    }
+
+    @Benchmark
+    public BitFrame[] perScheme() {
+        BitFrame[] out = new BitFrame[SCHEMES.length];
+        for (int s = 0; s < SCHEMES.length; s++) {
+            out[s] = Utils.encode(frame, SCHEMES[s]);
+        }
+        return out;
+    }
+}